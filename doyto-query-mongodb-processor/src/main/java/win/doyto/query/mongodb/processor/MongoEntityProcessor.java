@@ -0,0 +1,300 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * MongoEntityProcessor
+ * <p>
+ * Generate a {@code GeneratedMapper} for every class annotated with {@code @Entity(type = MONGO_DB)},
+ * which encodes, decodes and patches the entity through its getters and setters.
+ * The validity of a field for the updates is decided at compile time,
+ * except for the fields named with a query suffix, which are still checked by {@code QuerySuffix}.
+ * <p>
+ * Only the entity classes are generated: the query classes keep being
+ * translated by {@code FilterPlan}, which resolves their fields once per class.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@SupportedAnnotationTypes(MongoEntityProcessor.ENTITY_ANNOTATION)
+public class MongoEntityProcessor extends AbstractProcessor {
+    static final String ENTITY_ANNOTATION = "win.doyto.query.annotation.Entity";
+    static final String SUFFIX = "MongoMapper";
+    private static final String MONGO_DB = "MONGO_DB";
+    private static final String MONGO_PERSISTABLE = "win.doyto.query.mongodb.entity.MongoPersistable";
+    private static final String PERSISTABLE = "win.doyto.query.entity.Persistable";
+    private static final String MONGO_ID = "_id";
+    private static final String ID = "id";
+    private static final String OBJECT_ID = "objectId";
+    private static final List<String> QUERY_SUFFIXES = List.of(
+            "Not", "Ne", "In", "Null", "Like", "Contain", "Start", "End", "Rx", "Eq", "Gt", "Ge", "Lt", "Le");
+
+    private Elements elements;
+    private Types types;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        for (TypeElement annotation : annotations) {
+            for (TypeElement entityElement : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                if (isMongoEntity(entityElement)) {
+                    generate(entityElement);
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isMongoEntity(TypeElement element) {
+        if (element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(ENTITY_ANNOTATION)) {
+                return mirror.getElementValues().entrySet().stream().anyMatch(
+                        entry -> entry.getKey().getSimpleName().contentEquals("type")
+                                && entry.getValue().getValue().toString().equals(MONGO_DB));
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement entityElement) {
+        String binaryName = elements.getBinaryName(entityElement).toString();
+        int index = binaryName.lastIndexOf('.') + 1;
+        String packageName = index > 0 ? binaryName.substring(0, index - 1) : "";
+        String mapperName = binaryName.substring(index).replace('$', '_') + SUFFIX;
+        String entityName = entityElement.getQualifiedName().toString();
+        boolean mongoPersistable = isSubtype(entityElement.asType(), MONGO_PERSISTABLE);
+        List<VariableElement> fields = collectFields(entityElement, mongoPersistable);
+
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("import org.bson.*;\n")
+          .append("import org.bson.codecs.DecoderContext;\n")
+          .append("import org.bson.codecs.EncoderContext;\n")
+          .append("import org.bson.codecs.configuration.CodecRegistry;\n")
+          .append("import org.bson.conversions.Bson;\n")
+          .append("import win.doyto.query.mongodb.entity.GeneratedMapper;\n\n")
+          .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+          .append("public final class ").append(mapperName)
+          .append(" extends GeneratedMapper<").append(entityName).append("> {\n\n")
+          .append("    public ").append(mapperName).append("(CodecRegistry registry) {\n")
+          .append("        super(").append(entityName).append(".class, registry);\n")
+          .append("    }\n\n");
+        appendDecode(sb, entityName, fields, mongoPersistable);
+        appendEncode(sb, entityName, fields, mongoPersistable);
+        appendUpdates(sb, entityName, fields);
+        sb.append("}\n");
+
+        String qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedMapperName, entityElement);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(sb.toString());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to generate " + qualifiedMapperName + ": " + e.getMessage(), entityElement);
+        }
+    }
+
+    private List<VariableElement> collectFields(TypeElement entityElement, boolean mongoPersistable) {
+        List<VariableElement> fields = new ArrayList<>();
+        TypeElement current = entityElement;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                String name = field.getSimpleName().toString();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)
+                        || modifiers.contains(Modifier.FINAL) || isTransient(field)
+                        || (mongoPersistable && (ID.equals(name) || OBJECT_ID.equals(name)))) {
+                    continue;
+                }
+                fields.add(field);
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+        }
+        return fields;
+    }
+
+    private static boolean isTransient(VariableElement field) {
+        return field.getAnnotationMirrors().stream().anyMatch(mirror -> mirror.getAnnotationType()
+                .asElement().getSimpleName().contentEquals("Transient"));
+    }
+
+    private void appendDecode(StringBuilder sb, String entityName, List<VariableElement> fields, boolean mongoPersistable) {
+        sb.append("    @Override\n")
+          .append("    public ").append(entityName).append(" decode(BsonReader reader, DecoderContext decoderContext) {\n")
+          .append("        ").append(entityName).append(" entity = new ").append(entityName).append("();\n")
+          .append("        reader.readStartDocument();\n")
+          .append("        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {\n")
+          .append("            String name = reader.readName();\n")
+          .append("            if (reader.getCurrentBsonType() == BsonType.NULL) {\n")
+          .append("                reader.skipValue();\n")
+          .append("                continue;\n")
+          .append("            }\n")
+          .append("            switch (name) {\n");
+        if (mongoPersistable) {
+            sb.append("                case \"").append(MONGO_ID).append("\" -> {\n")
+              .append("                    if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {\n")
+              .append("                        entity.setObjectId(reader.readObjectId());\n")
+              .append("                    } else {\n")
+              .append("                        reader.skipValue();\n")
+              .append("                    }\n")
+              .append("                }\n");
+        }
+        for (VariableElement field : fields) {
+            String name = field.getSimpleName().toString();
+            sb.append("                case \"").append(columnName(name)).append("\" -> entity.")
+              .append(accessor("set", name)).append("(").append(decodeExpression(field.asType())).append(");\n");
+        }
+        sb.append("                default -> reader.skipValue();\n")
+          .append("            }\n")
+          .append("        }\n")
+          .append("        reader.readEndDocument();\n")
+          .append("        return entity;\n")
+          .append("    }\n\n");
+    }
+
+    private String decodeExpression(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            String boxed = types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+            return "decodeValue(reader, decoderContext, " + boxed + ".class)";
+        }
+        if (type instanceof DeclaredType declaredType && !declaredType.getTypeArguments().isEmpty()) {
+            String elementClass = types.erasure(declaredType.getTypeArguments().get(0)) + ".class";
+            if (isSubtype(type, "java.util.Set")) {
+                return "decodeSet(reader, decoderContext, " + elementClass + ")";
+            } else if (isSubtype(type, "java.util.Collection")) {
+                return "decodeList(reader, decoderContext, " + elementClass + ")";
+            }
+        }
+        return "decodeValue(reader, decoderContext, " + types.erasure(type) + ".class)";
+    }
+
+    private void appendEncode(StringBuilder sb, String entityName, List<VariableElement> fields, boolean mongoPersistable) {
+        sb.append("    @Override\n")
+          .append("    public void encode(BsonWriter writer, ").append(entityName)
+          .append(" entity, EncoderContext encoderContext) {\n")
+          .append("        writer.writeStartDocument();\n");
+        if (mongoPersistable) {
+            sb.append("        if (entity.getObjectId() != null) {\n")
+              .append("            writer.writeObjectId(\"").append(MONGO_ID).append("\", entity.getObjectId());\n")
+              .append("        }\n");
+        }
+        for (VariableElement field : fields) {
+            String name = field.getSimpleName().toString();
+            sb.append("        encodeField(writer, encoderContext, \"").append(columnName(name)).append("\", entity.")
+              .append(getter(field)).append("());\n");
+        }
+        sb.append("        writer.writeEndDocument();\n")
+          .append("    }\n\n");
+    }
+
+    private void appendUpdates(StringBuilder sb, String entityName, List<VariableElement> fields) {
+        sb.append("    @Override\n")
+          .append("    public Bson buildUpdates(").append(entityName).append(" entity) {\n")
+          .append("        Document set = new Document();\n");
+        int i = 0;
+        for (VariableElement field : fields) {
+            String name = field.getSimpleName().toString();
+            if (ID.equals(name)) {
+                continue;
+            }
+            TypeKind kind = field.asType().getKind();
+            String indent = "        ";
+            String variable = "v" + i++;
+            sb.append(indent).append("var ").append(variable).append(" = entity.").append(getter(field)).append("();\n");
+            if (hasQuerySuffix(name)) {
+                sb.append(indent).append("if (isValid(\"").append(name).append("\", ").append(variable).append(")) {\n");
+                indent += "    ";
+            } else if (kind == TypeKind.BOOLEAN) {
+                sb.append(indent).append("if (").append(variable).append(") {\n");
+                indent += "    ";
+            } else if (!kind.isPrimitive()) {
+                sb.append(indent).append("if (").append(variable).append(" != null) {\n");
+                indent += "    ";
+            }
+            if (isSubtype(field.asType(), PERSISTABLE)) {
+                sb.append(indent).append("appendBean(set, \"").append(name).append("\", ").append(variable).append(");\n");
+            } else {
+                sb.append(indent).append("set.append(\"").append(name).append("\", ").append(variable).append(");\n");
+            }
+            if (indent.length() > 8) {
+                sb.append("        }\n");
+            }
+        }
+        sb.append("        return toUpdates(set);\n")
+          .append("    }\n");
+    }
+
+    /**
+     * A field named with a query suffix, such as {@code tagsIn}, may be ignored
+     * by {@code QuerySuffix} for other values than null, so it is checked at runtime.
+     */
+    private static boolean hasQuerySuffix(String fieldName) {
+        return QUERY_SUFFIXES.stream().anyMatch(suffix -> fieldName.endsWith(suffix)
+                && fieldName.length() > suffix.length());
+    }
+
+    private boolean isSubtype(TypeMirror type, String className) {
+        TypeElement typeElement = elements.getTypeElement(className);
+        return typeElement != null && types.isAssignable(types.erasure(type), types.erasure(typeElement.asType()));
+    }
+
+    private static String columnName(String fieldName) {
+        return ID.equals(fieldName) ? MONGO_ID : fieldName;
+    }
+
+    private static String getter(VariableElement field) {
+        String prefix = field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get";
+        return accessor(prefix, field.getSimpleName().toString());
+    }
+
+    private static String accessor(String prefix, String fieldName) {
+        return prefix + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.filter;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import win.doyto.query.mongodb.MongoConstant;
+import win.doyto.query.mongodb.entity.CodecDocMapper;
+import win.doyto.query.mongodb.entity.EntityCodec;
+import win.doyto.query.mongodb.entity.EntityCodecProvider;
+import win.doyto.query.mongodb.entity.GeneratedMapper;
+import win.doyto.query.mongodb.processor.test.StockEntity;
+import win.doyto.query.mongodb.processor.test.StockEntityMongoMapper;
+import win.doyto.query.mongodb.processor.test.StockSize;
+
+import java.util.List;
+
+import static com.mongodb.MongoClientSettings.getDefaultCodecRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+/**
+ * UpdatePlanTest
+ * <p>
+ * Compare the mapper generated for {@link StockEntity} in the test build
+ * with the reflective updates and codec.
+ *
+ * @author agent on 2026/10/18
+ */
+class UpdatePlanTest {
+
+    private static final CodecRegistry REGISTRY = fromRegistries(
+            getDefaultCodecRegistry(), fromProviders(new EntityCodecProvider()));
+
+    @Test
+    void discoverGeneratedMapperAtRuntime() {
+        assertThat(GeneratedMapper.exists(StockEntity.class)).isTrue();
+        assertThat(GeneratedMapper.findForUpdates(StockEntity.class)).isInstanceOf(StockEntityMongoMapper.class);
+        assertThat(MongoConstant.newDocMapper(StockEntity.class)).isInstanceOf(CodecDocMapper.class);
+
+        StockEntity stock = MongoConstant.newDocMapper(StockEntity.class).map(Document.parse(
+                "{\"item\": \"journal\", \"qty\": 25, \"archived\": true, \"tags\": [\"red\"]}"));
+
+        assertThat(stock).extracting("item", "qty", "archived", "tags")
+                         .containsExactly("journal", 25, true, List.of("red"));
+    }
+
+    @Test
+    void buildSameUpdatesAsReflectionForAllFields() {
+        assertSameUpdates(newStock());
+    }
+
+    @Test
+    void buildSameUpdatesAsReflectionForDefaultValues() {
+        assertSameUpdates(new StockEntity());
+    }
+
+    @Test
+    void buildSameUpdatesAsReflectionForEmptyNestedBean() {
+        StockEntity stock = new StockEntity();
+        stock.setAudited(false);
+        stock.setSize(new StockSize());
+        stock.setTags(List.of());
+
+        assertSameUpdates(stock);
+    }
+
+    @Test
+    void encodeAndDecodeSameAsReflection() {
+        StockEntity stock = newStock();
+        stock.setObjectId(new ObjectId("628b3a27f7a4ba009198a677"));
+        EntityCodec<StockEntity> reflective = new EntityCodec<>(StockEntity.class, REGISTRY);
+        GeneratedMapper<StockEntity> generated = GeneratedMapper.find(StockEntity.class, REGISTRY);
+
+        BsonDocument expected = new BsonDocument();
+        reflective.encode(new BsonDocumentWriter(expected), stock, EncoderContext.builder().build());
+        BsonDocument actual = new BsonDocument();
+        generated.encode(new BsonDocumentWriter(actual), stock, EncoderContext.builder().build());
+
+        assertThat(actual).isEqualTo(expected);
+        assertThat(generated.decode(new BsonDocumentReader(expected), DecoderContext.builder().build()))
+                .usingRecursiveComparison()
+                .isEqualTo(reflective.decode(new BsonDocumentReader(expected), DecoderContext.builder().build()));
+    }
+
+    private static StockEntity newStock() {
+        StockEntity stock = new StockEntity();
+        stock.setItem("journal");
+        stock.setQty(25);
+        stock.setArchived(true);
+        stock.setAudited(true);
+        stock.setSize(new StockSize(8.5, null, "in"));
+        stock.setTags(List.of("red", "blank"));
+        return stock;
+    }
+
+    private static void assertSameUpdates(StockEntity stock) {
+        BsonDocument reflective = UpdatePlan.of(StockEntity.class).buildUpdates(stock).toBsonDocument();
+
+        assertThat(GeneratedMapper.findForUpdates(StockEntity.class).buildUpdates(stock).toBsonDocument())
+                .isEqualTo(reflective);
+        assertThat(MongoFilterBuilder.buildUpdates(stock).toBsonDocument()).isEqualTo(reflective);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.processor;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import win.doyto.query.mongodb.entity.EntityCodecProvider;
+import win.doyto.query.mongodb.entity.GeneratedMapper;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static com.mongodb.MongoClientSettings.getDefaultCodecRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+/**
+ * MongoEntityProcessorTest
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+class MongoEntityProcessorTest {
+
+    private static final String SOURCE = """
+            package demo;
+
+            import win.doyto.query.annotation.Entity;
+            import win.doyto.query.annotation.EntityType;
+            import win.doyto.query.mongodb.entity.MongoPersistable;
+
+            @Entity(type = EntityType.MONGO_DB, database = "doyto", name = "c_demo")
+            public class DemoEntity extends MongoPersistable<String> {
+                private String item;
+                private int qty;
+                private java.util.List<String> tags;
+
+                public String getItem() { return item; }
+                public void setItem(String item) { this.item = item; }
+                public int getQty() { return qty; }
+                public void setQty(int qty) { this.qty = qty; }
+                public java.util.List<String> getTags() { return tags; }
+                public void setTags(java.util.List<String> tags) { this.tags = tags; }
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @SuppressWarnings("unchecked")
+    private Class<Object> compileDemoEntity() throws IOException, ClassNotFoundException {
+        Path sourceFile = tempDir.resolve("demo/DemoEntity.java");
+        Files.createDirectories(sourceFile.getParent());
+        Files.writeString(sourceFile, SOURCE);
+        Path classes = Files.createDirectories(tempDir.resolve("classes"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, List.of(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-d", classes.toString(), "-s", classes.toString()
+            ), null, fileManager.getJavaFileObjects(sourceFile));
+            task.setProcessors(List.of(new MongoEntityProcessor()));
+            assertThat(task.call()).isTrue();
+        }
+
+        URLClassLoader classLoader = new URLClassLoader(
+                new URL[]{classes.toUri().toURL()}, getClass().getClassLoader());
+        return (Class<Object>) classLoader.loadClass("demo.DemoEntity");
+    }
+
+    @Test
+    void generateMapperForMongoEntity() throws Exception {
+        Class<Object> entityClass = compileDemoEntity();
+
+        assertThat(GeneratedMapper.mapperName(entityClass)).isEqualTo("demo.DemoEntityMongoMapper");
+        assertThat(GeneratedMapper.exists(entityClass)).isTrue();
+    }
+
+    @Test
+    void roundTripThroughGeneratedMapper() throws Exception {
+        Class<Object> entityClass = compileDemoEntity();
+        Codec<Object> mapper = GeneratedMapper.find(entityClass, fromRegistries(
+                getDefaultCodecRegistry(), fromProviders(new EntityCodecProvider())));
+        BsonDocument source = BsonDocument.parse(
+                "{\"_id\": {\"$oid\": \"628b3a27f7a4ba009198a677\"}, \"item\": \"journal\", \"qty\": 25, " +
+                        "\"tags\": [\"red\", \"blank\"], \"unknown\": 1, \"status\": null}");
+
+        Object entity = mapper.decode(new BsonDocumentReader(source), DecoderContext.builder().build());
+        BsonDocument target = new BsonDocument();
+        mapper.encode(new BsonDocumentWriter(target), entity, EncoderContext.builder().build());
+
+        source.remove("unknown");
+        source.remove("status");
+        assertThat(target).isEqualTo(source);
+    }
+
+    @Test
+    void buildUpdatesWithNonNullFields() throws Exception {
+        Class<Object> entityClass = compileDemoEntity();
+        Object entity = entityClass.getConstructor().newInstance();
+        entityClass.getMethod("setItem", String.class).invoke(entity, "journal");
+
+        Bson updates = GeneratedMapper.findForUpdates(entityClass).buildUpdates(entity);
+
+        assertThat(updates.toBsonDocument()).hasToString("{\"$set\": {\"item\": \"journal\", \"qty\": 0}}");
+    }
+}
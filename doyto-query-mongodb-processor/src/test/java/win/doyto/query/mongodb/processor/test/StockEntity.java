@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb.processor.test;
+
+import win.doyto.query.annotation.Entity;
+import win.doyto.query.annotation.EntityType;
+import win.doyto.query.mongodb.entity.MongoPersistable;
+
+import java.util.List;
+
+/**
+ * StockEntity
+ * <p>
+ * Compiled with MongoEntityProcessor in the test build to check the generated mapper.
+ *
+ * @author agent on 2026/10/18
+ */
+@Entity(type = EntityType.MONGO_DB, database = "doyto", name = "c_stock")
+public class StockEntity extends MongoPersistable<String> {
+
+    private String item;
+    private int qty;
+    private boolean archived;
+    private Boolean audited;
+    private StockSize size;
+    private List<String> tags;
+
+    public String getItem() {
+        return item;
+    }
+
+    public void setItem(String item) {
+        this.item = item;
+    }
+
+    public int getQty() {
+        return qty;
+    }
+
+    public void setQty(int qty) {
+        this.qty = qty;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+
+    public Boolean getAudited() {
+        return audited;
+    }
+
+    public void setAudited(Boolean audited) {
+        this.audited = audited;
+    }
+
+    public StockSize getSize() {
+        return size;
+    }
+
+    public void setSize(StockSize size) {
+        this.size = size;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb.processor.test;
+
+import org.bson.types.ObjectId;
+import win.doyto.query.annotation.Entity;
+import win.doyto.query.annotation.EntityType;
+import win.doyto.query.mongodb.entity.MongoPersistable;
+
+/**
+ * StockSize
+ *
+ * @author agent on 2026/10/18
+ */
+@Entity(type = EntityType.MONGO_DB, database = "doyto", name = "c_stock_size")
+public class StockSize extends MongoPersistable<ObjectId> {
+
+    private Double h;
+    private Double w;
+    private String uom;
+
+    public StockSize() {
+    }
+
+    public StockSize(Double h, Double w, String uom) {
+        this.h = h;
+        this.w = w;
+        this.uom = uom;
+    }
+
+    public Double getH() {
+        return h;
+    }
+
+    public void setH(Double h) {
+        this.h = h;
+    }
+
+    public Double getW() {
+        return w;
+    }
+
+    public void setW(Double w) {
+        this.w = w;
+    }
+
+    public String getUom() {
+        return uom;
+    }
+
+    public void setUom(String uom) {
+        this.uom = uom;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * BulkResult
+ * <p>
+ * The outcome of each entity in a bulk write, in the order of the entities,
+ * along with the counts summed over the chunks.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Getter
+@AllArgsConstructor
+public class BulkResult<E> {
+    private final List<Outcome<E>> outcomes;
+    private final long matchedCount;
+    private final long modifiedCount;
+    private final long upsertedCount;
+
+    public boolean hasFailures() {
+        return outcomes.stream().anyMatch(outcome -> outcome.status().isFailure());
+    }
+
+    /**
+     * The outcomes either {@link Status#FAILED} or {@link Status#UNACKNOWLEDGED}.
+     */
+    public List<Outcome<E>> getFailures() {
+        return outcomes.stream().filter(outcome -> outcome.status().isFailure()).toList();
+    }
+
+    /**
+     * The server reports the matches in counts only, so a write without error is {@link #APPLIED}
+     * whether it matched a document or not.
+     * A write in a chunk failing the write concern is {@link #UNACKNOWLEDGED},
+     * since it might have been applied or not.
+     */
+    public enum Status {
+        APPLIED, UPSERTED, FAILED, UNACKNOWLEDGED;
+
+        public boolean isFailure() {
+            return this == FAILED || this == UNACKNOWLEDGED;
+        }
+    }
+
+    public record Outcome<E>(E entity, Status status, String error) {
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import win.doyto.query.mongodb.BulkResult.Outcome;
+import win.doyto.query.mongodb.BulkResult.Status;
+import win.doyto.query.mongodb.entity.ObjectIdAware;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * BulkWriter
+ * <p>
+ * Write the entities by unordered bulk writes, one per chunk of
+ * the server's maxWriteBatchSize, and collect the outcome per entity.
+ * An entity whose model cannot be built, signaled by an {@link IllegalArgumentException},
+ * fails alone without being sent, and a write concern error marks
+ * the other entities of the chunk {@link Status#UNACKNOWLEDGED}.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class BulkWriter {
+    private static final int DEFAULT_MAX_WRITE_BATCH_SIZE = 100_000;
+    private static final Map<MongoClient, Integer> MAX_WRITE_BATCH_SIZE_MAP = new ConcurrentHashMap<>();
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    static int maxWriteBatchSize(MongoClient mongoClient) {
+        return MAX_WRITE_BATCH_SIZE_MAP.computeIfAbsent(mongoClient, client -> {
+            try {
+                Document hello = client.getDatabase("admin").runCommand(new Document("hello", 1));
+                return hello.getInteger("maxWriteBatchSize", DEFAULT_MAX_WRITE_BATCH_SIZE);
+            } catch (RuntimeException e) {
+                log.warn("Failed to read maxWriteBatchSize, use {}: {}", DEFAULT_MAX_WRITE_BATCH_SIZE, e.getMessage());
+                return DEFAULT_MAX_WRITE_BATCH_SIZE;
+            }
+        });
+    }
+
+    static <E> BulkResult<E> write(
+            MongoCollection<E> collection, ClientSession session, List<E> entities,
+            Function<E, WriteModel<E>> toModel, int chunkSize
+    ) {
+        List<Outcome<E>> outcomes = new ArrayList<>(entities.size());
+        long matched = 0;
+        long modified = 0;
+        long upserted = 0;
+        for (int from = 0; from < entities.size(); from += chunkSize) {
+            List<E> chunk = entities.subList(from, Math.min(from + chunkSize, entities.size()));
+            Status[] statuses = new Status[chunk.size()];
+            String[] errors = new String[chunk.size()];
+            List<WriteModel<E>> models = new ArrayList<>(chunk.size());
+            // the index in the chunk of each model
+            int[] indexes = new int[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    WriteModel<E> model = toModel.apply(chunk.get(i));
+                    indexes[models.size()] = i;
+                    models.add(model);
+                } catch (IllegalArgumentException e) {
+                    statuses[i] = Status.FAILED;
+                    errors[i] = e.getMessage();
+                }
+            }
+            if (!models.isEmpty()) {
+                BulkWriteResult result;
+                WriteConcernError writeConcernError = null;
+                try {
+                    result = collection.bulkWrite(session, models, UNORDERED);
+                } catch (MongoBulkWriteException e) {
+                    result = e.getWriteResult();
+                    writeConcernError = e.getWriteConcernError();
+                    for (BulkWriteError writeError : e.getWriteErrors()) {
+                        statuses[indexes[writeError.getIndex()]] = Status.FAILED;
+                        errors[indexes[writeError.getIndex()]] = writeError.getMessage();
+                    }
+                }
+                if (result.wasAcknowledged()) {
+                    matched += result.getMatchedCount();
+                    modified += result.getModifiedCount();
+                    upserted += result.getUpserts().size();
+                    for (BulkWriteUpsert upsert : result.getUpserts()) {
+                        statuses[indexes[upsert.getIndex()]] = Status.UPSERTED;
+                        setUpsertedId(chunk.get(indexes[upsert.getIndex()]), upsert);
+                    }
+                }
+                if (writeConcernError != null) {
+                    for (int j = 0; j < models.size(); j++) {
+                        if (statuses[indexes[j]] != Status.FAILED) {
+                            statuses[indexes[j]] = Status.UNACKNOWLEDGED;
+                            errors[indexes[j]] = writeConcernError.getMessage();
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                Status status = statuses[i] == null ? Status.APPLIED : statuses[i];
+                outcomes.add(new Outcome<>(chunk.get(i), status, errors[i]));
+            }
+        }
+        return new BulkResult<>(outcomes, matched, modified, upserted);
+    }
+
+    private static void setUpsertedId(Object entity, BulkWriteUpsert upsert) {
+        if (entity instanceof ObjectIdAware objectIdAware && objectIdAware.getObjectId() == null
+                && upsert.getId().isObjectId()) {
+            objectIdAware.setObjectId(upsert.getId().asObjectId().getValue());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Projections;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.ToLongBiFunction;
+
+import static com.mongodb.client.model.Filters.*;
+import static win.doyto.query.mongodb.MongoConstant.MONGO_ID;
+
+/**
+ * ChunkedChangeExecutor
+ * <p>
+ * Apply a change, i.e. deleteMany or updateMany, chunk by chunk
+ * instead of by one command for all the matched documents.
+ * The change is called with a null session for the chunks
+ * running concurrently outside the transaction.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ChunkedChangeExecutor {
+
+    /**
+     * Change the ids by an {@code $in} filter per chunk.
+     * The ids are collected before changing, so the change does not move the cursor that finds them.
+     *
+     * @param parallelism the number of chunks changed concurrently, which is 1 in a transaction
+     */
+    static long changeByIds(
+            List<ObjectId> ids, ClientSession session, int chunkSize, int parallelism,
+            ToLongBiFunction<ClientSession, Bson> change
+    ) {
+        if (parallelism > 1 && !session.hasActiveTransaction()) {
+            return changeConcurrently(ids, chunkSize, parallelism, change);
+        }
+        long total = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            total += change.applyAsLong(session, chunkFilter(ids, from, chunkSize));
+        }
+        return total;
+    }
+
+    private static long changeConcurrently(
+            List<ObjectId> ids, int chunkSize, int parallelism, ToLongBiFunction<ClientSession, Bson> change
+    ) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<Long>> futures = new ArrayList<>();
+        try {
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                Bson filter = chunkFilter(ids, from, chunkSize);
+                futures.add(executor.submit(() -> change.applyAsLong(null, filter)));
+            }
+            long total = 0;
+            for (Future<Long> future : futures) {
+                total += future.get();
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while changing the chunks", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Bson chunkFilter(List<ObjectId> ids, int from, int chunkSize) {
+        return in(MONGO_ID, ids.subList(from, Math.min(from + chunkSize, ids.size())));
+    }
+
+    /**
+     * Change all the documents matching the filter in batches of {@code _id} ranges.
+     * Each batch ends at the {@code batchSize}-th id after the previous batch,
+     * so neither the ids nor a long running command are held.
+     */
+    static long changeByIdRanges(
+            MongoCollection<Document> collection, ClientSession session, Bson filter, int batchSize,
+            ToLongBiFunction<ClientSession, Bson> change
+    ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize should be positive: " + batchSize);
+        }
+        long total = 0;
+        ObjectId lowerId = null;
+        while (true) {
+            Bson rangeFilter = lowerId == null ? filter : and(filter, gt(MONGO_ID, lowerId));
+            Document upper = collection.find(session, rangeFilter)
+                                       .projection(Projections.include(MONGO_ID))
+                                       .sort(new Document(MONGO_ID, 1))
+                                       .skip(batchSize - 1)
+                                       .first();
+            if (upper == null) {
+                return total + change.applyAsLong(session, rangeFilter);
+            }
+            ObjectId upperId = upper.getObjectId(MONGO_ID);
+            total += change.applyAsLong(session, and(rangeFilter, lte(MONGO_ID, upperId)));
+            log.debug("Changed the batch up to {}, {} in total", upperId, total);
+            lowerId = upperId;
+        }
+    }
+}
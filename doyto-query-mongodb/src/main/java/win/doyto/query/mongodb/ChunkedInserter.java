@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.codecs.CollectibleCodec;
+import win.doyto.query.mongodb.InsertResult.ChunkFailure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ChunkedInserter
+ * <p>
+ * Insert the entities consumed lazily from an iterable in bounded chunks
+ * by unordered insertMany, so a bad document fails alone.
+ * The ids are generated before the chunks are sent, and the chunks are sent
+ * by concurrent workers outside the transaction, with at most twice the
+ * number of workers in memory.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+final class ChunkedInserter<E> {
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+
+    private final MongoCollection<E> collection;
+    private final ClientSession session;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final List<Future<?>> futures = new ArrayList<>();
+    private final AtomicLong inserted = new AtomicLong();
+    private final List<ChunkFailure<E>> failures = Collections.synchronizedList(new ArrayList<>());
+
+    private ChunkedInserter(MongoCollection<E> collection, ClientSession session, int workers) {
+        this.collection = collection;
+        boolean concurrent = workers > 1 && !session.hasActiveTransaction();
+        // the concurrent chunks run without the session
+        this.session = concurrent ? null : session;
+        this.executor = concurrent ? Executors.newFixedThreadPool(workers) : null;
+        this.permits = new Semaphore(workers * 2);
+    }
+
+    static <E> InsertResult<E> insert(
+            MongoCollection<E> collection, ClientSession session, CollectibleCodec<E> codec,
+            Iterable<E> entities, int chunkSize, int workers
+    ) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize should be positive: " + chunkSize);
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers should be positive: " + workers);
+        }
+        return new ChunkedInserter<>(collection, session, workers).insert(codec, entities, chunkSize);
+    }
+
+    private InsertResult<E> insert(CollectibleCodec<E> codec, Iterable<E> entities, int chunkSize) {
+        try {
+            int index = 0;
+            List<E> chunk = new ArrayList<>(chunkSize);
+            for (E entity : entities) {
+                chunk.add(codec.generateIdIfAbsentFromDocument(entity));
+                if (chunk.size() == chunkSize) {
+                    submit(chunk, index++);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(chunk, index);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while inserting the chunks", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        List<ChunkFailure<E>> sorted = new ArrayList<>(failures);
+        sorted.sort(Comparator.comparingInt(ChunkFailure::chunk));
+        return new InsertResult<>(inserted.get(), sorted);
+    }
+
+    private void submit(List<E> chunk, int index) throws InterruptedException {
+        if (executor == null) {
+            insertChunk(chunk, index);
+            return;
+        }
+        permits.acquire();
+        futures.add(executor.submit(() -> {
+            try {
+                insertChunk(chunk, index);
+            } finally {
+                permits.release();
+            }
+        }));
+    }
+
+    private void insertChunk(List<E> chunk, int index) {
+        try {
+            if (session == null) {
+                collection.insertMany(chunk, UNORDERED);
+            } else {
+                collection.insertMany(session, chunk, UNORDERED);
+            }
+            inserted.addAndGet(chunk.size());
+        } catch (MongoBulkWriteException e) {
+            WriteConcernError writeConcernError = e.getWriteConcernError();
+            if (writeConcernError != null) {
+                // none of the inserts is confirmed by the write concern
+                failures.add(new ChunkFailure<>(index, List.copyOf(chunk), writeConcernError.getMessage(), false));
+                return;
+            }
+            List<BulkWriteError> writeErrors = e.getWriteErrors();
+            inserted.addAndGet(e.getWriteResult().getInsertedCount());
+            List<E> failed = writeErrors.stream().map(writeError -> chunk.get(writeError.getIndex())).toList();
+            String error = writeErrors.isEmpty() ? e.getMessage() : writeErrors.get(0).getMessage();
+            failures.add(new ChunkFailure<>(index, failed, error, true));
+        } catch (MongoException e) {
+            failures.add(new ChunkFailure<>(index, List.copyOf(chunk), e.getMessage(), false));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import win.doyto.query.core.DoytoQuery;
+import win.doyto.query.core.PageList;
+import win.doyto.query.mongodb.aggregation.AggregationMetadata;
+import win.doyto.query.mongodb.entity.DocMapper;
+import win.doyto.query.mongodb.paging.CappedPageList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static win.doyto.query.mongodb.MongoConstant.*;
+
+/**
+ * FacetPageReader
+ * <p>
+ * Read the page data and the total count from the single
+ * response of the pipeline built by {@link AggregationMetadata#buildFacetPage}.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class FacetPageReader {
+    private static final int BSON_OBJECT_TOO_LARGE = 10334;
+    private static final int FACET_RESULT_TOO_LARGE = 4031700;
+
+    static <V> PageList<V> page(
+            AggregationMetadata<MongoCollection<Document>> md, ClientSession session,
+            DoytoQuery query, DocMapper<V> docMapper, Supplier<PageList<V>> fallback
+    ) {
+        return page(md, session, query, 0, docMapper, fallback);
+    }
+
+    /**
+     * @param countLimit count up to the limit for a {@link CappedPageList}, or 0 for the exact total
+     */
+    static <V> PageList<V> page(
+            AggregationMetadata<MongoCollection<Document>> md, ClientSession session,
+            DoytoQuery query, int countLimit, DocMapper<V> docMapper, Supplier<PageList<V>> fallback
+    ) {
+        try {
+            RawBsonDocument result = md.getCollection()
+                                       .withDocumentClass(RawBsonDocument.class)
+                                       .aggregate(session, md.buildFacetPage(query, countLimit))
+                                       .first();
+            List<V> list = new ArrayList<>();
+            long count = result == null ? 0 : read(result, docMapper, list);
+            return countLimit > 0 ? new CappedPageList<>(list, count, countLimit) : new PageList<>(list, count);
+        } catch (MongoCommandException e) {
+            // a failed command aborts the transaction, so there is nothing to fall back on
+            if (!isTooLarge(e) || session.hasActiveTransaction()) {
+                throw e;
+            }
+            log.warn("Facet result exceeds the document size limit, fall back to two queries: {}", md.getViewClass());
+            return fallback.get();
+        }
+    }
+
+    private static boolean isTooLarge(MongoCommandException e) {
+        return e.getErrorCode() == BSON_OBJECT_TOO_LARGE || e.getErrorCode() == FACET_RESULT_TOO_LARGE;
+    }
+
+    private static <V> long read(RawBsonDocument result, DocMapper<V> docMapper, List<V> list) {
+        for (BsonValue value : result.getArray(FACET_DATA)) {
+            list.add(docMapper.map(value.asDocument()));
+        }
+        BsonArray total = result.getArray(FACET_TOTAL);
+        return total.isEmpty() ? 0 : total.get(0).asDocument().getNumber(COUNT_KEY).longValue();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * IdBatchLoader
+ * <p>
+ * Coalesce the concurrent loads by id into one batch call. The first caller
+ * of a batch waits for the window or until the batch is full, loads the
+ * distinct ids of the batch and completes the futures of the other callers.
+ * It blocks by {@link ReentrantLock} rather than {@code synchronized},
+ * so that the waiting virtual threads do not pin their carriers.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Slf4j
+public class IdBatchLoader<I, E> {
+    private final Function<Collection<I>, Map<I, E>> batchFunction;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchFull = lock.newCondition();
+    private Batch<I, E> current;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder loadedIds = new LongAdder();
+    private final LongAccumulator largestBatch = new LongAccumulator(Math::max, 0);
+
+    public IdBatchLoader(Function<Collection<I>, Map<I, E>> batchFunction, int maxBatchSize, Duration window) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize should be positive: " + maxBatchSize);
+        }
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Load the entity by the id within a batch, null if absent.
+     */
+    public E load(I id) {
+        Batch<I, E> batch;
+        CompletableFuture<E> future;
+        boolean leader = false;
+        lock.lock();
+        try {
+            if (current == null) {
+                current = new Batch<>();
+                leader = true;
+            }
+            batch = current;
+            future = batch.futures.computeIfAbsent(id, k -> new CompletableFuture<>());
+            requests.increment();
+            if (batch.futures.size() >= maxBatchSize) {
+                current = null;
+                batchFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (leader) {
+            awaitWindow(batch);
+            dispatch(batch);
+        }
+        return join(future);
+    }
+
+    private void awaitWindow(Batch<I, E> batch) {
+        lock.lock();
+        try {
+            long remaining = windowNanos;
+            while (current == batch && remaining > 0) {
+                remaining = batchFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (current == batch) {
+                current = null;
+            }
+            lock.unlock();
+        }
+    }
+
+    private void dispatch(Batch<I, E> batch) {
+        Map<I, CompletableFuture<E>> futures = batch.futures;
+        batches.increment();
+        loadedIds.add(futures.size());
+        largestBatch.accumulate(futures.size());
+        log.debug("Load a batch of {} ids", futures.size());
+        try {
+            Map<I, E> result = batchFunction.apply(futures.keySet());
+            futures.forEach((id, future) -> future.complete(result.get(id)));
+        } catch (Throwable e) {
+            // complete the followers on errors as well, otherwise they would wait forever
+            futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static <E> E join(CompletableFuture<E> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(batches.sum(), requests.sum(), loadedIds.sum(), largestBatch.get());
+    }
+
+    /**
+     * The number of batches, of the load calls, of the distinct ids loaded by the batches,
+     * and the size of the largest batch.
+     */
+    public record Metrics(long batches, long requests, long loadedIds, long largestBatch) {
+        public double averageBatchSize() {
+            return batches == 0 ? 0 : (double) loadedIds / batches;
+        }
+    }
+
+    private static class Batch<I, E> {
+        private final Map<I, CompletableFuture<E>> futures = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * InsertResult
+ * <p>
+ * The number of inserted entities and the failures of each chunk
+ * of a streaming insert.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Getter
+@AllArgsConstructor
+public class InsertResult<E> {
+    private final long insertedCount;
+    private final List<ChunkFailure<E>> failures;
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * @param chunk    the index of the chunk in the input
+     * @param entities the entities failed to insert in the chunk
+     * @param error    the error message of the first failure
+     * @param acknowledged true when the entities are known not to be inserted,
+     *                     or false when the write concern or the connection failed,
+     *                     so the entities might have been inserted
+     */
+    public record ChunkFailure<E>(int chunk, List<E> entities, String error, boolean acknowledged) {
+    }
+}
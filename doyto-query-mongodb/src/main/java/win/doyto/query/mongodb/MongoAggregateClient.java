@@ -25,7 +25,6 @@ import win.doyto.query.core.AggregateClient;
 import win.doyto.query.core.AggregatedQuery;
 import win.doyto.query.mongodb.aggregation.AggregationMetadata;
 import win.doyto.query.mongodb.aggregation.CollectionProvider;
-import win.doyto.query.mongodb.entity.BeanDocMapper;
 import win.doyto.query.mongodb.entity.DocMapper;
 import win.doyto.query.mongodb.session.MongoSessionThreadLocalSupplier;
 
@@ -59,13 +58,11 @@ public class MongoAggregateClient implements AggregateClient {
         AggregationMetadata<MongoCollection<Document>> md =
                 AggregationMetadata.build(viewClass, collectionProvider);
         List<Bson> pipeline = md.buildByAggregatedQuery(aggregatedQuery);
-        return md.getCollection()
-                 .aggregate(mongoSessionSupplier.get(), pipeline)
-                 .map(docMapper::map)
-                 .into(new ArrayList<>());
+        return docMapper.aggregate(md.getCollection(), mongoSessionSupplier.get(), pipeline)
+                        .into(new ArrayList<>());
     }
 
-    protected <V> BeanDocMapper<V> newMapper(Class<V> viewClass) {
-        return new BeanDocMapper<>(viewClass);
+    protected <V> DocMapper<V> newMapper(Class<V> viewClass) {
+        return MongoConstant.newDocMapper(viewClass);
     }
 }
@@ -18,7 +18,9 @@ package win.doyto.query.mongodb;
 
 import lombok.experimental.UtilityClass;
 import win.doyto.query.mongodb.entity.BeanDocMapper;
+import win.doyto.query.mongodb.entity.CodecDocMapper;
 import win.doyto.query.mongodb.entity.DocMapper;
+import win.doyto.query.mongodb.entity.GeneratedMapper;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,15 +36,40 @@ import java.util.function.Function;
 public class MongoConstant {
     public static final String MONGO_ID = "_id";
     public static final String COUNT_KEY = "count";
+    public static final String FACET_DATA = "data";
+    public static final String FACET_TOTAL = "total";
     public final Map<Class<?>, DocMapper<?>> DOC_MAPPER_MAP = new ConcurrentHashMap<>();
+    private Function<Class<?>, DocMapper<?>> docMapperFactory = MongoConstant::defaultDocMapper;
 
     public String ex(String field) {
         return "$" + field;
     }
 
+    /**
+     * Prefer the mapper generated at compile time, otherwise map by Jackson.
+     */
+    private DocMapper<?> defaultDocMapper(Class<?> clazz) {
+        return GeneratedMapper.exists(clazz) ? new CodecDocMapper<>(clazz) : new BeanDocMapper<>(clazz);
+    }
+
+    /**
+     * Choose how the query results are mapped, e.g. {@code CodecDocMapper::new}
+     * to decode BSON into entities without the JSON round trip.
+     * Should be set before any data access is created.
+     */
+    public void setDocMapperFactory(Function<Class<?>, DocMapper<?>> factory) {
+        docMapperFactory = factory;
+        DOC_MAPPER_MAP.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> DocMapper<V> newDocMapper(Class<V> clazz) {
+        return (DocMapper<V>) docMapperFactory.apply(clazz);
+    }
+
     @SuppressWarnings("unchecked")
     public <V> DocMapper<V> getDocMapper(Class<V> clazz) {
-        return (DocMapper<V>) DOC_MAPPER_MAP.computeIfAbsent(clazz, BeanDocMapper::new);
+        return (DocMapper<V>) DOC_MAPPER_MAP.computeIfAbsent(clazz, docMapperFactory);
     }
 
     @SuppressWarnings("unchecked")
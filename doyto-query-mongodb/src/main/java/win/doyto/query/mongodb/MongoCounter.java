@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.CountOptions;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import win.doyto.query.core.DoytoQuery;
+import win.doyto.query.mongodb.aggregation.AggregationMetadata;
+import win.doyto.query.mongodb.filter.EmptyBson;
+
+import static win.doyto.query.mongodb.MongoConstant.COUNT_KEY;
+
+/**
+ * MongoCounter
+ * <p>
+ * Count by the cheapest strategy the query allows:
+ * {@code estimatedDocumentCount} for an empty filter,
+ * {@code countDocuments} for a plain filter,
+ * and an aggregation for nested queries or grouping.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class MongoCounter {
+
+    static long count(AggregationMetadata<MongoCollection<Document>> md, ClientSession session, DoytoQuery query) {
+        return count(md, session, query, 0);
+    }
+
+    /**
+     * @param countLimit stop counting after {@code countLimit + 1} documents, or 0 for no limit
+     */
+    static long count(AggregationMetadata<MongoCollection<Document>> md, ClientSession session,
+                      DoytoQuery query, int countLimit) {
+        MongoCollection<Document> collection = md.getCollection();
+        Bson filter = md.buildCountFilter(query);
+        if (filter == null) {
+            log.debug("Count {} by aggregation", md.getViewClass().getSimpleName());
+            Integer count = collection.aggregate(session, md.buildCount(query, countLimit))
+                                      .map(document -> document.getInteger(COUNT_KEY))
+                                      .first();
+            return ObjectUtils.defaultIfNull(count, 0);
+        }
+        // estimatedDocumentCount is not supported in a transaction
+        if (filter instanceof EmptyBson && !session.hasActiveTransaction()) {
+            log.debug("Count {} by estimatedDocumentCount", md.getViewClass().getSimpleName());
+            return collection.estimatedDocumentCount();
+        }
+        log.debug("Count {} by countDocuments", md.getViewClass().getSimpleName());
+        CountOptions countOptions = new CountOptions();
+        if (countLimit > 0) {
+            countOptions.limit(countLimit + 1);
+        }
+        return collection.countDocuments(session, filter, countOptions);
+    }
+}
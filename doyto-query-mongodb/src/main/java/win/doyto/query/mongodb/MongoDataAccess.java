@@ -16,17 +16,34 @@
 
 package win.doyto.query.mongodb;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoIterable;
 import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecConfigurationException;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import win.doyto.query.config.GlobalConfiguration;
@@ -37,23 +54,33 @@ import win.doyto.query.core.PageList;
 import win.doyto.query.entity.Persistable;
 import win.doyto.query.mongodb.aggregation.AggregationMetadata;
 import win.doyto.query.mongodb.aggregation.CollectionProvider;
+import win.doyto.query.mongodb.aggregation.JoinScope;
 import win.doyto.query.mongodb.entity.BeanDocMapper;
+import win.doyto.query.mongodb.entity.CodecDocMapper;
 import win.doyto.query.mongodb.entity.DocMapper;
 import win.doyto.query.mongodb.entity.ObjectIdAware;
 import win.doyto.query.mongodb.entity.ObjectIdMapper;
 import win.doyto.query.mongodb.filter.MongoFilterBuilder;
+import win.doyto.query.mongodb.paging.CappedPageList;
+import win.doyto.query.mongodb.paging.KeysetList;
+import win.doyto.query.mongodb.paging.KeysetPageList;
+import win.doyto.query.mongodb.paging.KeysetReader;
+import win.doyto.query.mongodb.paging.SliceList;
+import win.doyto.query.mongodb.session.MongoSessionSupplier;
 import win.doyto.query.mongodb.session.MongoSessionThreadLocalSupplier;
 import win.doyto.query.util.BeanUtil;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToLongBiFunction;
+import java.util.stream.Stream;
 
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Filters.in;
-import static win.doyto.query.mongodb.MongoConstant.COUNT_KEY;
 import static win.doyto.query.mongodb.MongoConstant.MONGO_ID;
 
 /**
@@ -63,6 +90,10 @@ import static win.doyto.query.mongodb.MongoConstant.MONGO_ID;
  */
 @Slf4j
 public class MongoDataAccess<E extends Persistable<I>, I extends Serializable, Q extends DoytoQuery> implements DataAccess<E, I, Q> {
+    private static final String COLUMN_KEY = "v";
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+    private static final int ID_CHUNK_SIZE = 10_000;
     private final Class<E> entityClass;
     @Getter
     private final MongoCollection<Document> collection;
@@ -71,6 +102,28 @@ public class MongoDataAccess<E extends Persistable<I>, I extends Serializable, Q
     private final AggregationMetadata<MongoCollection<Document>> md;
 
     private DocMapper<E> docMapper;
+    private final MongoCollection<E> entityCollection;
+    private final CollectibleCodec<E> entityCodec;
+    private final MongoClient mongoClient;
+    /**
+     * The number of documents per batch for the streaming queries, 0 for the driver's default.
+     */
+    @Setter
+    private int batchSize;
+    /**
+     * Count up to this limit in {@link #page} for a {@link CappedPageList}, 0 for the exact total.
+     */
+    @Setter
+    private int countLimit;
+    /**
+     * The number of ids per deleteMany/updateMany for the paged delete and patch.
+     */
+    private int changeChunkSize = 1000;
+    /**
+     * The number of chunks changed concurrently outside transactions.
+     */
+    private int changeParallelism = 1;
+    private IdBatchLoader<ObjectId, E> idBatchLoader;
 
     MongoDataAccess(MongoClient mongoClient, Class<E> entityClass) {
         this(entityClass, mongoClient, MongoSessionThreadLocalSupplier.create(mongoClient));
@@ -78,56 +131,214 @@ public class MongoDataAccess<E extends Persistable<I>, I extends Serializable, Q
 
     public MongoDataAccess(Class<E> entityClass, MongoClient mongoClient, Supplier<ClientSession> mongoSessionSupplier) {
         this.entityClass = entityClass;
+        this.mongoClient = mongoClient;
         this.mongoSessionSupplier = mongoSessionSupplier;
         CollectionProvider collectionProvider = new CollectionProvider(mongoClient);
         this.md = AggregationMetadata.build(entityClass, collectionProvider);
         this.collection = md.getCollection();
-        this.docMapper = new BeanDocMapper<>(entityClass);
+        this.docMapper = MongoConstant.getDocMapper(entityClass);
+        CodecDocMapper<E> writeMapper = docMapper instanceof CodecDocMapper<E> codecDocMapper
+                ? codecDocMapper : new BeanDocMapper<>(entityClass);
+        this.entityCollection = writeMapper.bind(collection);
+        this.entityCodec = (CollectibleCodec<E>) writeMapper.getCodec();
     }
 
-    private void setObjectId(E entity, Document document) {
-        ObjectId objectId = (ObjectId) document.get(MONGO_ID);
-        if (entity instanceof ObjectIdAware objectIdAware) {
-            objectIdAware.setObjectId(objectId);
+    public void setChangeChunkSize(int changeChunkSize) {
+        if (changeChunkSize < 1) {
+            throw new IllegalArgumentException("changeChunkSize should be positive: " + changeChunkSize);
         }
+        this.changeChunkSize = changeChunkSize;
+    }
+
+    public void setChangeParallelism(int changeParallelism) {
+        if (changeParallelism < 1) {
+            throw new IllegalArgumentException("changeParallelism should be positive: " + changeParallelism);
+        }
+        this.changeParallelism = changeParallelism;
     }
 
     private Bson getIdFilter(Object id) {
-        return eq(MONGO_ID, new ObjectId(id.toString()));
+        return eq(MONGO_ID, ObjectIdMapper.toObjectId(id));
+    }
+
+    /**
+     * Change the paged documents by their ids chunk by chunk, or all the matched documents at once.
+     */
+    private long changeByQuery(Q query, ToLongBiFunction<ClientSession, Bson> change) {
+        ClientSession session = mongoSessionSupplier.get();
+        if (query.needPaging()) {
+            // collect the page before changing it, since the change shifts the skipped documents
+            List<ObjectId> ids = findColumns(session, query, ObjectId.class, null, true, MONGO_ID)
+                    .into(new ArrayList<>(query.getPageSize()));
+            return ChunkedChangeExecutor.changeByIds(ids, session, changeChunkSize, changeParallelism, change);
+        }
+        return change.applyAsLong(session, MongoFilterBuilder.buildFilter(query));
     }
 
-    private Bson buildFilterForChange(Q query) {
-        return query.needPaging() ? in(MONGO_ID, queryObjectId(query)) : MongoFilterBuilder.buildFilter(query);
+    private long deleteMany(ClientSession session, Bson filter) {
+        DeleteResult result = session == null ? collection.deleteMany(filter) : collection.deleteMany(session, filter);
+        return result.getDeletedCount();
+    }
+
+    private long updateMany(ClientSession session, Bson filter, Bson updates) {
+        UpdateResult result = session == null
+                ? collection.updateMany(filter, updates) : collection.updateMany(session, filter, updates);
+        return result.getModifiedCount();
     }
 
     @Override
     public List<E> query(Q query) {
-        List<Bson> pipeline = md.buildAggregation(query);
-        return md.getCollection().aggregate(mongoSessionSupplier.get(), pipeline)
-                 .map(docMapper::map)
-                 .into(new ArrayList<>());
+        ClientSession session = mongoSessionSupplier.get();
+        return JoinScope.run(session, () -> {
+            List<Bson> pipeline = md.buildAggregation(query);
+            return docMapper.aggregate(md.getCollection(), session, pipeline).into(new ArrayList<>());
+        });
+    }
+
+    /**
+     * Iterate the results lazily, which should be closed if not exhausted.
+     */
+    public ResultCursor<E> iterate(Q query) {
+        ClientSession session = mongoSessionSupplier.get();
+        List<Bson> pipeline = JoinScope.run(session, () -> md.buildAggregation(query));
+        return new ResultCursor<>(docMapper.aggregate(md.getCollection(), session, pipeline), session, batchSize);
+    }
+
+    /**
+     * Stream the results lazily, which should be closed by try-with-resources.
+     */
+    public Stream<E> stream(Q query) {
+        return iterate(query).stream();
+    }
+
+    public void forEach(Q query, Consumer<E> action) {
+        try (ResultCursor<E> cursor = iterate(query)) {
+            cursor.forEachRemaining(action);
+        }
+    }
+
+    public <V> Stream<V> streamColumns(Q query, Class<V> clazz, String... columns) {
+        ClientSession session = mongoSessionSupplier.get();
+        MongoIterable<V> iterable = findColumns(session, query, clazz, null, columns.length == 1, columns);
+        return new ResultCursor<>(iterable, session, batchSize).stream();
+    }
+
+    public Stream<I> streamIds(Q query) {
+        return streamColumns(query, ObjectId.class, MONGO_ID)
+                .<I>map(objectId -> ObjectIdMapper.convert(entityClass, objectId));
     }
 
     @Override
     public long count(Q query) {
-        List<Bson> pipeline = md.buildCount(query);
-        Integer count = md.getCollection()
-                          .aggregate(mongoSessionSupplier.get(), pipeline)
-                          .map(document -> document.getInteger(COUNT_KEY))
-                          .first();
-        return ObjectUtils.defaultIfNull(count, 0);
+        ClientSession session = mongoSessionSupplier.get();
+        return JoinScope.run(session, () -> MongoCounter.count(md, session, query));
     }
 
+    /**
+     * Page in one scope, so the reverse joins are resolved once for both the query and the count.
+     */
     @Override
     public PageList<E> page(Q query) {
+        ClientSession session = mongoSessionSupplier.get();
+        return JoinScope.run(session, () -> {
+            if (md.isFacetPaging()) {
+                return FacetPageReader.page(md, session, query, countLimit, docMapper, () -> pageByQueries(query));
+            }
+            return pageByQueries(query);
+        });
+    }
+
+    private PageList<E> pageByQueries(Q query) {
+        if (countLimit > 0) {
+            return pageCapped(query, countLimit);
+        }
         return new PageList<>(query(query), count(query));
     }
 
+    /**
+     * Query the page without counting, telling whether a next page exists.
+     */
+    public SliceList<E> slice(Q query) {
+        ClientSession session = mongoSessionSupplier.get();
+        List<Bson> pipeline = JoinScope.run(session, () -> md.buildSlice(query));
+        List<E> list = docMapper.aggregate(md.getCollection(), session, pipeline).into(new ArrayList<>());
+        return new SliceList<>(list, query.getPageSize());
+    }
+
+    /**
+     * Count up to the limit instead of the exact total, e.g. for "10,000+".
+     */
+    public CappedPageList<E> pageCapped(Q query, int countLimit) {
+        ClientSession session = mongoSessionSupplier.get();
+        return JoinScope.run(session, () -> {
+            long count = MongoCounter.count(md, session, query, countLimit);
+            return new CappedPageList<>(query(query), count, countLimit);
+        });
+    }
+
+    /**
+     * Query the page after the token, or the first page when the token is null.
+     */
+    public KeysetList<E> queryByKeyset(Q query, String token) {
+        ClientSession session = mongoSessionSupplier.get();
+        return JoinScope.run(session, () -> KeysetReader.read(md, session, query, token, docMapper));
+    }
+
+    public KeysetPageList<E> pageByKeyset(Q query, String token) {
+        return JoinScope.run(mongoSessionSupplier.get(),
+                             () -> new KeysetPageList<>(queryByKeyset(query, token), count(query)));
+    }
+
     @Override
     public <V> List<V> queryColumns(Q query, Class<V> clazz, String... columns) {
-        FindIterable<Document> findIterable = collection
-                .find(mongoSessionSupplier.get(), MongoFilterBuilder.buildFilter(query))
-                .projection(Projections.include(columns));
+        return findColumns(mongoSessionSupplier.get(), query, clazz, null, columns.length == 1, columns)
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * Query the columns in a way MongoDB can answer from an index alone:
+     * {@code _id} is excluded unless requested, and the index can be forced by the hint.
+     *
+     * @param hint the index to use, or null to let MongoDB choose
+     */
+    public <V> List<V> queryColumnsCovered(Q query, Class<V> clazz, Bson hint, String... columns) {
+        return findColumns(mongoSessionSupplier.get(), query, clazz, hint, true, columns).into(new ArrayList<>());
+    }
+
+    /**
+     * Explain the plan of {@link #queryColumnsCovered}, which is not allowed in a transaction.
+     */
+    public Document explainColumnsCovered(Q query, Bson hint, String... columns) {
+        return configureFind(collection.find(MongoFilterBuilder.buildFilter(query)), query, hint, true, columns)
+                .explain();
+    }
+
+    private <V> MongoIterable<V> findColumns(
+            ClientSession session, Q query, Class<V> clazz, Bson hint, boolean excludeId, String... columns
+    ) {
+        Bson filter = MongoFilterBuilder.buildFilter(query);
+        Codec<V> codec = columns.length == 1 ? findCodec(clazz) : null;
+        if (codec != null) {
+            List<String> keys = splitToKeys(columns[0]);
+            return configureFind(collection.withDocumentClass(RawBsonDocument.class).find(session, filter),
+                                 query, hint, excludeId, columns)
+                    .map(document -> decodeColumn(document, keys, codec));
+        }
+        return configureFind(collection.find(session, filter), query, hint, excludeId, columns)
+                .map(document -> convert(document, columns, clazz));
+    }
+
+    private <T> FindIterable<T> configureFind(
+            FindIterable<T> findIterable, Q query, Bson hint, boolean excludeId, String... columns
+    ) {
+        Bson projection = Projections.include(columns);
+        if (excludeId && !ArrayUtils.contains(columns, MONGO_ID)) {
+            projection = Projections.fields(projection, Projections.excludeId());
+        }
+        findIterable.projection(projection);
+        if (hint != null) {
+            findIterable.hint(hint);
+        }
         if (query.getSort() != null) {
             findIterable.sort(MongoFilterBuilder.buildSort(query.getSort()));
         }
@@ -135,9 +346,35 @@ public class MongoDataAccess<E extends Persistable<I>, I extends Serializable, Q
             int offset = GlobalConfiguration.calcOffset(query);
             findIterable.skip(offset).limit(query.getPageSize());
         }
-        return findIterable
-                .map(document -> convert(document, columns, clazz))
-                .into(new ArrayList<>());
+        return findIterable;
+    }
+
+    private <V> Codec<V> findCodec(Class<V> clazz) {
+        try {
+            return collection.getCodecRegistry().get(clazz);
+        } catch (CodecConfigurationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decode the single column from the raw bytes, skipping the conversion to {@link Document}.
+     */
+    private <V> V decodeColumn(RawBsonDocument document, List<String> keys, Codec<V> codec) {
+        BsonValue value = document;
+        for (String key : keys) {
+            value = value.isDocument() ? value.asDocument().get(key) : null;
+            if (value == null) {
+                return null;
+            }
+        }
+        if (value.isNull()) {
+            return null;
+        }
+        BsonDocumentReader reader = new BsonDocumentReader(new BsonDocument(COLUMN_KEY, value));
+        reader.readStartDocument();
+        reader.readName();
+        return codec.decode(reader, DECODER_CONTEXT);
     }
 
     private <V> V convert(Document document, String[] columns, Class<V> clazz) {
@@ -164,9 +401,79 @@ public class MongoDataAccess<E extends Persistable<I>, I extends Serializable, Q
 
     @Override
     public E get(IdWrapper<I> w) {
-        return collection
-                .find(mongoSessionSupplier.get(), getIdFilter(w.getId()))
-                .map(docMapper::map).first();
+        // convert before batching, so that an invalid id fails only its own call
+        ObjectId objectId = ObjectIdMapper.toObjectId(w.getId());
+        if (idBatchLoader != null && !hasActiveTransaction()) {
+            return idBatchLoader.load(objectId);
+        }
+        return docMapper.find(collection, mongoSessionSupplier.get(), eq(MONGO_ID, objectId)).first();
+    }
+
+    private boolean hasActiveTransaction() {
+        if (mongoSessionSupplier instanceof MongoSessionSupplier sessionSupplier) {
+            return sessionSupplier.hasActiveTransaction();
+        }
+        return mongoSessionSupplier.get().hasActiveTransaction();
+    }
+
+    /**
+     * Coalesce the concurrent {@link #get} calls outside transactions into
+     * {@link #getByIdsAsMap} calls of up to maxBatchSize distinct ids within the window.
+     */
+    public IdBatchLoader<ObjectId, E> enableGetBatching(int maxBatchSize, Duration window) {
+        idBatchLoader = new IdBatchLoader<>(this::findByObjectIds, maxBatchSize, window);
+        return idBatchLoader;
+    }
+
+    /**
+     * Get the entities by the ids with one {@code $in} find per chunk of ids,
+     * in the order of the ids and skipping the absent ones.
+     */
+    public List<E> getByIds(Collection<I> ids) {
+        Map<ObjectId, E> entityMap = findByIds(ids);
+        List<E> entities = new ArrayList<>(ids.size());
+        for (I id : ids) {
+            E e = entityMap.get(ObjectIdMapper.toObjectId(id));
+            if (e != null) {
+                entities.add(e);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Get the entities by the ids as a map in the order of the ids, without the absent ones.
+     */
+    public Map<I, E> getByIdsAsMap(Collection<I> ids) {
+        Map<ObjectId, E> entityMap = findByIds(ids);
+        Map<I, E> result = new LinkedHashMap<>();
+        for (I id : ids) {
+            E e = entityMap.get(ObjectIdMapper.toObjectId(id));
+            if (e != null) {
+                result.put(id, e);
+            }
+        }
+        return result;
+    }
+
+    private Map<ObjectId, E> findByIds(Collection<I> ids) {
+        return findByObjectIds(ids.stream().map(ObjectIdMapper::toObjectId).toList());
+    }
+
+    private Map<ObjectId, E> findByObjectIds(Collection<ObjectId> ids) {
+        List<ObjectId> objectIds = ids.stream().distinct().toList();
+        Map<ObjectId, E> entityMap = new HashMap<>();
+        if (objectIds.isEmpty()) {
+            return entityMap;
+        }
+        ClientSession session = mongoSessionSupplier.get();
+        for (int from = 0; from < objectIds.size(); from += ID_CHUNK_SIZE) {
+            List<ObjectId> chunk = objectIds.subList(from, Math.min(from + ID_CHUNK_SIZE, objectIds.size()));
+            for (E e : docMapper.find(collection, session, in(MONGO_ID, chunk))) {
+                entityMap.put(ObjectIdMapper.toObjectId(e instanceof ObjectIdAware aware ? aware.getObjectId() : e.getId()), e);
+            }
+        }
+        return entityMap;
     }
 
     @Override
@@ -176,35 +483,150 @@ public class MongoDataAccess<E extends Persistable<I>, I extends Serializable, Q
 
     @Override
     public int delete(Q query) {
-        Bson inId = buildFilterForChange(query);
-        return (int) collection.deleteMany(mongoSessionSupplier.get(), inId).getDeletedCount();
+        return (int) changeByQuery(query, this::deleteMany);
+    }
+
+    /**
+     * Delete all the documents matching the query in batches of {@code _id} ranges,
+     * ignoring the paging of the query.
+     */
+    public long deleteInBatches(Q query, int batchSize) {
+        Bson filter = MongoFilterBuilder.buildFilter(query);
+        return ChunkedChangeExecutor.changeByIdRanges(collection, mongoSessionSupplier.get(), filter, batchSize, this::deleteMany);
     }
 
     @Override
     public void create(E entity) {
-        Document document = BeanUtil.convertToIgnoreNull(entity, Document.class);
-        collection.insertOne(mongoSessionSupplier.get(), document);
-        setObjectId(entity, document);
+        entityCollection.insertOne(mongoSessionSupplier.get(), entity);
     }
 
     @Override
     public int batchInsert(Iterable<E> entities, String... columns) {
-        List<Document> documents = BeanUtil.convertToIgnoreNull(entities, new TypeReference<List<Document>>() {});
-        collection.insertMany(mongoSessionSupplier.get(), documents);
-        int i = 0;
-        for (E entity : entities) {
-            setObjectId(entity, documents.get(i));
-            i++;
-        }
-        return documents.size();
+        List<E> entityList = new ArrayList<>();
+        entities.forEach(entityList::add);
+        entityCollection.insertMany(mongoSessionSupplier.get(), entityList);
+        return entityList.size();
+    }
+
+    /**
+     * Insert the entities consumed lazily in chunks by unordered insertMany on concurrent workers,
+     * reporting the failures per chunk instead of stopping at the first bad entity.
+     *
+     * @param workers the number of chunks inserted concurrently outside transactions
+     */
+    public InsertResult<E> ingest(Iterable<E> entities, int chunkSize, int workers) {
+        return ChunkedInserter.insert(entityCollection, mongoSessionSupplier.get(), entityCodec, entities, chunkSize, workers);
     }
 
     @Override
     public int update(E e) {
         Bson filter = getIdFilter(e.getId());
-        Document replacement = BeanUtil.convertTo(e, Document.class);
-        replacement.remove(MONGO_ID);
-        return (int) collection.replaceOne(mongoSessionSupplier.get(), filter, replacement).getModifiedCount();
+        return (int) entityCollection.replaceOne(mongoSessionSupplier.get(), filter, e).getModifiedCount();
+    }
+
+    /**
+     * Replace the entity by its id, or insert it when absent,
+     * where the id is generated for the entity without one.
+     *
+     * @return 1 if the entity is matched or inserted, otherwise 0
+     */
+    public int upsert(E e) {
+        if (e.getId() == null) {
+            entityCodec.generateIdIfAbsentFromDocument(e);
+        }
+        return upsert(e, getIdFilter(e.getId()));
+    }
+
+    /**
+     * Replace the entity matched by a natural key, i.e. the query, or insert it when absent.
+     */
+    public int upsert(E e, Q query) {
+        return upsert(e, MongoFilterBuilder.buildFilter(query));
+    }
+
+    private int upsert(E e, Bson filter) {
+        UpdateResult result = entityCollection.replaceOne(mongoSessionSupplier.get(), filter, e, UPSERT);
+        return toUpsertCount(e, result);
+    }
+
+    /**
+     * Patch the non-null fields of the entity onto the document matched by the query,
+     * or insert a document built from the query and the fields when absent.
+     */
+    public int upsertPatch(E patch, Q query) {
+        return upsertPatch(patch, query, null);
+    }
+
+    /**
+     * @param onInsert the non-null fields to set by {@code $setOnInsert} only when inserted,
+     *                 except the fields patched by {@code $set}
+     */
+    public int upsertPatch(E patch, Q query, E onInsert) {
+        Bson updates = MongoFilterBuilder.buildUpdates(patch);
+        if (onInsert != null) {
+            BsonDocument setDoc = updates.toBsonDocument().getDocument("$set", new BsonDocument());
+            BsonDocument setOnInsert = MongoFilterBuilder.buildUpdates(onInsert).toBsonDocument()
+                                                         .getDocument("$set", new BsonDocument()).clone();
+            setOnInsert.keySet().removeAll(setDoc.keySet());
+            if (!setOnInsert.isEmpty()) {
+                updates = Updates.combine(updates, new BsonDocument("$setOnInsert", setOnInsert));
+            }
+        }
+        UpdateResult result = collection.updateOne(mongoSessionSupplier.get(), MongoFilterBuilder.buildFilter(query),
+                                                   updates, new UpdateOptions().upsert(true));
+        return toUpsertCount(patch, result);
+    }
+
+    private int toUpsertCount(E e, UpdateResult result) {
+        BsonValue upsertedId = result.getUpsertedId();
+        if (upsertedId == null) {
+            return (int) result.getMatchedCount();
+        }
+        if (e instanceof ObjectIdAware objectIdAware && objectIdAware.getObjectId() == null && upsertedId.isObjectId()) {
+            objectIdAware.setObjectId(upsertedId.asObjectId().getValue());
+        }
+        return 1;
+    }
+
+    /**
+     * Replace the entities by their ids in unordered bulk writes.
+     */
+    public BulkResult<E> batchUpdate(Iterable<E> entities) {
+        return bulkWrite(entities, e -> new ReplaceOneModel<>(getIdFilter(e.getId()), e));
+    }
+
+    /**
+     * Patch the non-null fields of the entities by their ids in unordered bulk writes.
+     * An entity without any non-null field fails alone.
+     */
+    public BulkResult<E> batchPatch(Iterable<E> entities) {
+        return bulkWrite(entities, e -> {
+            Bson updates = MongoFilterBuilder.buildUpdates(e);
+            if (updates.toBsonDocument().isEmpty()) {
+                throw new IllegalArgumentException("No field to patch for id: " + e.getId());
+            }
+            return new UpdateOneModel<>(getIdFilter(e.getId()), updates);
+        });
+    }
+
+    /**
+     * Replace the entities by their ids or insert them when absent,
+     * where the ids are generated for the entities without one.
+     */
+    public BulkResult<E> batchUpsert(Iterable<E> entities) {
+        return bulkWrite(entities, e -> {
+            if (e.getId() == null) {
+                entityCodec.generateIdIfAbsentFromDocument(e);
+            }
+            return new ReplaceOneModel<>(getIdFilter(e.getId()), e, UPSERT);
+        });
+    }
+
+    private BulkResult<E> bulkWrite(Iterable<E> entities, Function<E, WriteModel<E>> toModel) {
+        List<E> entityList = new ArrayList<>();
+        entities.forEach(entityList::add);
+        int chunkSize = BulkWriter.maxWriteBatchSize(mongoClient);
+        return BulkWriter.write(entityCollection, mongoSessionSupplier.get(), entityList, toModel, chunkSize);
     }
 
     @Override
@@ -216,8 +638,18 @@ public class MongoDataAccess<E extends Persistable<I>, I extends Serializable, Q
     @Override
     public int patch(E e, Q q) {
         Bson updates = MongoFilterBuilder.buildUpdates(e);
-        Bson inId = buildFilterForChange(q);
-        return (int) collection.updateMany(mongoSessionSupplier.get(), inId, updates).getModifiedCount();
+        return (int) changeByQuery(q, (session, filter) -> updateMany(session, filter, updates));
+    }
+
+    /**
+     * Patch all the documents matching the query in batches of {@code _id} ranges,
+     * ignoring the paging of the query.
+     */
+    public long patchInBatches(E e, Q q, int batchSize) {
+        Bson updates = MongoFilterBuilder.buildUpdates(e);
+        Bson filter = MongoFilterBuilder.buildFilter(q);
+        return ChunkedChangeExecutor.changeByIdRanges(collection, mongoSessionSupplier.get(), filter, batchSize,
+                                                      (session, f) -> updateMany(session, f, updates));
     }
 
     @Override
@@ -229,6 +661,6 @@ public class MongoDataAccess<E extends Persistable<I>, I extends Serializable, Q
     }
 
     public List<ObjectId> queryObjectId(Q query) {
-        return queryColumns(query, ObjectId.class, MONGO_ID);
+        return queryColumnsCovered(query, ObjectId.class, null, MONGO_ID);
     }
 }
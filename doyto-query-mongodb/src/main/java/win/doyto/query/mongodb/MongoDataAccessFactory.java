@@ -45,6 +45,7 @@ public class MongoDataAccessFactory implements DataAccessFactory {
     public <E extends Persistable<I>, I extends Serializable, Q extends DoytoQuery> DataAccess<E, I, Q>
     createDataAccess(BeanFactory beanFactory, Class<E> entityClass) {
         tryCreateEmbeddedMongoServerFirst(beanFactory);
+        beanFactory.getBeanProvider(MongoWarmUp.class).ifAvailable(MongoWarmUp::prepare);
         try {
             MongoClient mongoClient = beanFactory.getBean(MongoClient.class);
             MongoSessionSupplier mongoSessionSupplier = beanFactory.getBean(MongoSessionSupplier.class);
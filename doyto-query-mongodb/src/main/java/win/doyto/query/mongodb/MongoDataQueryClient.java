@@ -19,25 +19,30 @@ package win.doyto.query.mongodb;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
-import org.apache.commons.lang3.ObjectUtils;
+import lombok.Setter;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import win.doyto.query.core.AggregationQuery;
 import win.doyto.query.core.DataQueryClient;
 import win.doyto.query.core.DoytoQuery;
+import win.doyto.query.core.PageList;
 import win.doyto.query.entity.Persistable;
 import win.doyto.query.mongodb.aggregation.AggregationMetadata;
 import win.doyto.query.mongodb.aggregation.CollectionProvider;
-import win.doyto.query.mongodb.entity.BeanDocMapper;
+import win.doyto.query.mongodb.aggregation.JoinScope;
 import win.doyto.query.mongodb.entity.DocMapper;
+import win.doyto.query.mongodb.paging.KeysetList;
+import win.doyto.query.mongodb.paging.KeysetPageList;
+import win.doyto.query.mongodb.paging.KeysetReader;
+import win.doyto.query.mongodb.paging.SliceList;
 import win.doyto.query.mongodb.session.MongoSessionThreadLocalSupplier;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
-
-import static win.doyto.query.mongodb.MongoConstant.COUNT_KEY;
+import java.util.stream.Stream;
 
 /**
  * MongoDataQuery
@@ -47,6 +52,11 @@ import static win.doyto.query.mongodb.MongoConstant.COUNT_KEY;
 public class MongoDataQueryClient implements DataQueryClient {
     private final Supplier<ClientSession> mongoSessionSupplier;
     private final CollectionProvider collectionProvider;
+    /**
+     * The number of documents per batch for the streaming queries, 0 for the driver's default.
+     */
+    @Setter
+    private int batchSize;
 
     MongoDataQueryClient(MongoClient mongoClient) {
         this(mongoClient, MongoSessionThreadLocalSupplier.create(mongoClient));
@@ -68,12 +78,10 @@ public class MongoDataQueryClient implements DataQueryClient {
     commonQuery(Q query, Class<V> viewClass) {
         AggregationMetadata<MongoCollection<Document>> md =
                 AggregationMetadata.build(viewClass, collectionProvider);
-        List<Bson> pipeline = md.buildAggregation(query);
+        ClientSession session = mongoSessionSupplier.get();
+        List<Bson> pipeline = JoinScope.run(session, () -> md.buildAggregation(query));
         DocMapper<V> docMapper = MongoConstant.getDocMapper(viewClass, this::newMapper);
-        return md.getCollection()
-                 .aggregate(mongoSessionSupplier.get(), pipeline)
-                 .map(docMapper::map)
-                 .into(new ArrayList<>());
+        return docMapper.aggregate(md.getCollection(), session, pipeline).into(new ArrayList<>());
     }
 
     @Override
@@ -81,12 +89,24 @@ public class MongoDataQueryClient implements DataQueryClient {
     long count(Q query, Class<V> viewClass) {
         AggregationMetadata<MongoCollection<Document>> md =
                 AggregationMetadata.build(viewClass, collectionProvider);
-        List<Bson> pipeline = md.buildCount(query);
-        Integer count = md.getCollection()
-                          .aggregate(mongoSessionSupplier.get(), pipeline)
-                          .map(document -> document.getInteger(COUNT_KEY))
-                          .first();
-        return ObjectUtils.defaultIfNull(count, 0);
+        ClientSession session = mongoSessionSupplier.get();
+        return JoinScope.run(session, () -> MongoCounter.count(md, session, query));
+    }
+
+    @Override
+    public <V extends Persistable<I>, I extends Serializable, Q extends DoytoQuery>
+    PageList<V> page(Q query, Class<V> viewClass) {
+        AggregationMetadata<MongoCollection<Document>> md =
+                AggregationMetadata.build(viewClass, collectionProvider);
+        ClientSession session = mongoSessionSupplier.get();
+        return JoinScope.run(session, () -> {
+            if (md.isFacetPaging()) {
+                DocMapper<V> docMapper = MongoConstant.getDocMapper(viewClass, this::newMapper);
+                return FacetPageReader.page(md, session, query, docMapper,
+                                            () -> new PageList<>(query(query, viewClass), count(query, viewClass)));
+            }
+            return new PageList<>(query(query, viewClass), count(query, viewClass));
+        });
     }
 
     @Override
@@ -94,7 +114,62 @@ public class MongoDataQueryClient implements DataQueryClient {
         return commonQuery(query, viewClass);
     }
 
-    protected <V> BeanDocMapper<V> newMapper(Class<V> viewClass) {
-        return new BeanDocMapper<>(viewClass);
+    /**
+     * Query or aggregate the page without counting, telling whether a next page exists.
+     */
+    public <V, Q extends DoytoQuery> SliceList<V> slice(Q query, Class<V> viewClass) {
+        AggregationMetadata<MongoCollection<Document>> md =
+                AggregationMetadata.build(viewClass, collectionProvider);
+        ClientSession session = mongoSessionSupplier.get();
+        List<Bson> pipeline = JoinScope.run(session, () -> md.buildSlice(query));
+        DocMapper<V> docMapper = MongoConstant.getDocMapper(viewClass, this::newMapper);
+        List<V> list = docMapper.aggregate(md.getCollection(), session, pipeline).into(new ArrayList<>());
+        return new SliceList<>(list, query.getPageSize());
+    }
+
+    /**
+     * Query or aggregate the results lazily, which should be closed if not exhausted.
+     */
+    public <V, Q extends DoytoQuery> ResultCursor<V> iterate(Q query, Class<V> viewClass) {
+        AggregationMetadata<MongoCollection<Document>> md =
+                AggregationMetadata.build(viewClass, collectionProvider);
+        ClientSession session = mongoSessionSupplier.get();
+        List<Bson> pipeline = JoinScope.run(session, () -> md.buildAggregation(query));
+        DocMapper<V> docMapper = MongoConstant.getDocMapper(viewClass, this::newMapper);
+        return new ResultCursor<>(docMapper.aggregate(md.getCollection(), session, pipeline), session, batchSize);
+    }
+
+    /**
+     * Stream the results lazily, which should be closed by try-with-resources.
+     */
+    public <V, Q extends DoytoQuery> Stream<V> stream(Q query, Class<V> viewClass) {
+        return iterate(query, viewClass).stream();
+    }
+
+    public <V, Q extends DoytoQuery> void forEach(Q query, Class<V> viewClass, Consumer<V> action) {
+        try (ResultCursor<V> cursor = iterate(query, viewClass)) {
+            cursor.forEachRemaining(action);
+        }
+    }
+
+    /**
+     * Query or aggregate the page after the token, or the first page when the token is null.
+     */
+    public <V, Q extends DoytoQuery> KeysetList<V> queryByKeyset(Q query, Class<V> viewClass, String token) {
+        AggregationMetadata<MongoCollection<Document>> md =
+                AggregationMetadata.build(viewClass, collectionProvider);
+        DocMapper<V> docMapper = MongoConstant.getDocMapper(viewClass, this::newMapper);
+        ClientSession session = mongoSessionSupplier.get();
+        return JoinScope.run(session, () -> KeysetReader.read(md, session, query, token, docMapper));
+    }
+
+    public <V extends Persistable<I>, I extends Serializable, Q extends DoytoQuery>
+    KeysetPageList<V> pageByKeyset(Q query, Class<V> viewClass, String token) {
+        return JoinScope.run(mongoSessionSupplier.get(),
+                             () -> new KeysetPageList<>(queryByKeyset(query, viewClass, token), count(query, viewClass)));
+    }
+
+    protected <V> DocMapper<V> newMapper(Class<V> viewClass) {
+        return MongoConstant.newDocMapper(viewClass);
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.client.MongoClient;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.util.ClassUtils;
+import win.doyto.query.annotation.Entity;
+import win.doyto.query.annotation.EntityType;
+import win.doyto.query.mongodb.aggregation.AggregationMetadata;
+import win.doyto.query.mongodb.aggregation.CollectionProvider;
+import win.doyto.query.mongodb.entity.DocMapper;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MongoWarmUp
+ * <p>
+ * Declare it as a bean to prepare the Mongo entities before the first request:
+ * <ul>
+ *     <li>scan the classes annotated with {@code @Entity(type = MONGO_DB)} under {@link #basePackages}
+ *     and prebuild their {@link AggregationMetadata} and {@link DocMapper}s,
+ *     once {@link MongoDataAccessFactory} creates the first data access;</li>
+ *     <li>pre-open {@link #connections} connections of the pool;</li>
+ *     <li>run the {@link #queries} after all singletons are instantiated.</li>
+ * </ul>
+ * The time spent on each class is logged and kept in {@link #getTimings()}.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Slf4j
+@Getter
+@Setter
+public class MongoWarmUp implements SmartInitializingSingleton {
+    private static final String RESOURCE_PATTERN = "classpath*:%s/**/*.class";
+    private static final Document PING = new Document("ping", 1);
+
+    private final MongoClient mongoClient;
+    private String[] basePackages = {};
+    private List<Class<?>> viewClasses = new ArrayList<>();
+    private int connections;
+    private List<Runnable> queries = new ArrayList<>();
+
+    @Setter(AccessLevel.NONE)
+    private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicBoolean prepared = new AtomicBoolean();
+
+    public MongoWarmUp(MongoClient mongoClient) {
+        this.mongoClient = mongoClient;
+    }
+
+    /**
+     * Prepare the metadata and the connections, only once.
+     */
+    public void prepare() {
+        if (!prepared.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        Set<Class<?>> classes = new LinkedHashSet<>(scanEntityClasses());
+        classes.addAll(viewClasses);
+        CollectionProvider collectionProvider = new CollectionProvider(mongoClient);
+        for (Class<?> clazz : classes) {
+            time(clazz.getName(), () -> prepareClass(clazz, collectionProvider));
+        }
+        if (connections > 0) {
+            time("connections", this::openConnections);
+        }
+        log.info("Mongo warm-up prepared {} classes in {} ms", classes.size(), elapsed(start));
+    }
+
+    private static void prepareClass(Class<?> clazz, CollectionProvider collectionProvider) {
+        AggregationMetadata.build(clazz, collectionProvider);
+        DocMapper<?> docMapper = MongoConstant.getDocMapper(clazz);
+        // resolve the deserializers and the id mapper by mapping an empty document
+        docMapper.map(new Document());
+    }
+
+    private List<Class<?>> scanEntityClasses() {
+        List<Class<?>> classes = new ArrayList<>();
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        CachingMetadataReaderFactory readerFactory = new CachingMetadataReaderFactory(resolver);
+        for (String basePackage : basePackages) {
+            String pattern = String.format(RESOURCE_PATTERN, ClassUtils.convertClassNameToResourcePath(basePackage));
+            try {
+                for (Resource resource : resolver.getResources(pattern)) {
+                    MetadataReader reader = readerFactory.getMetadataReader(resource);
+                    if (isMongoEntity(reader.getAnnotationMetadata())) {
+                        classes.add(ClassUtils.forName(reader.getClassMetadata().getClassName(), resolver.getClassLoader()));
+                    }
+                }
+            } catch (IOException | ClassNotFoundException | LinkageError e) {
+                log.warn("Failed to scan package {} for Mongo entities", basePackage, e);
+            }
+        }
+        return classes;
+    }
+
+    private static boolean isMongoEntity(AnnotationMetadata metadata) {
+        Map<String, Object> attributes = metadata.getAnnotationAttributes(Entity.class.getName());
+        return attributes != null && !metadata.isAbstract() && EntityType.MONGO_DB == attributes.get("type");
+    }
+
+    /**
+     * Ping concurrently so that the pool has to open a connection for each ping.
+     */
+    private void openConnections() {
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            CountDownLatch ready = new CountDownLatch(connections);
+            for (int i = 0; i < connections; i++) {
+                executor.execute(() -> {
+                    ready.countDown();
+                    try {
+                        ready.await();
+                        mongoClient.getDatabase("admin").runCommand(PING);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Mongo warm-up timed out when opening {} connections", connections);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        prepare();
+        for (int i = 0; i < queries.size(); i++) {
+            time("query#" + i, queries.get(i));
+        }
+    }
+
+    private void time(String name, Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("Mongo warm-up failed for {}", name, e);
+        }
+        long elapsed = elapsed(start);
+        timings.put(name, elapsed);
+        log.info("Mongo warm-up for {} took {} ms", name, elapsed);
+    }
+
+    private static long elapsed(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ResultCursor
+ * <p>
+ * Iterate the results lazily over an open {@link MongoCursor}.
+ * The cursor and the session are closed when the results are
+ * exhausted or this is closed, except the session in a transaction.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public class ResultCursor<V> implements Iterator<V>, Closeable {
+    private final MongoCursor<V> cursor;
+    private final ClientSession session;
+    private boolean closed;
+
+    ResultCursor(MongoIterable<V> iterable, ClientSession session, int batchSize) {
+        this.session = session;
+        if (batchSize > 0) {
+            iterable.batchSize(batchSize);
+        }
+        try {
+            this.cursor = iterable.cursor();
+        } catch (RuntimeException e) {
+            closeSession();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        boolean hasNext = cursor.hasNext();
+        if (!hasNext) {
+            close();
+        }
+        return hasNext;
+    }
+
+    @Override
+    public V next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return cursor.next();
+    }
+
+    public Stream<V> stream() {
+        Spliterator<V> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            cursor.close();
+        } finally {
+            closeSession();
+        }
+    }
+
+    private void closeSession() {
+        if (!session.hasActiveTransaction()) {
+            session.close();
+        }
+    }
+}
@@ -18,8 +18,10 @@ package win.doyto.query.mongodb.aggregation;
 
 import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.Facet;
+import com.mongodb.client.model.Sorts;
+import lombok.AccessLevel;
 import lombok.Getter;
-import org.apache.commons.lang3.StringUtils;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import win.doyto.query.annotation.DomainPath;
@@ -33,21 +35,22 @@ import win.doyto.query.core.Having;
 import win.doyto.query.mongodb.annotation.AggregateField;
 import win.doyto.query.mongodb.annotation.AggregateFields;
 import win.doyto.query.mongodb.annotation.Expression;
-import win.doyto.query.mongodb.filter.EmptyBson;
+import win.doyto.query.mongodb.annotation.FacetPaging;
 import win.doyto.query.mongodb.filter.MongoFilterBuilder;
 import win.doyto.query.mongodb.filter.MongoGroupBuilder;
+import win.doyto.query.mongodb.filter.SortKey;
+import win.doyto.query.mongodb.paging.KeysetToken;
 import win.doyto.query.util.ColumnUtil;
-import win.doyto.query.util.CommonUtil;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static win.doyto.query.mongodb.MongoConstant.*;
-import static win.doyto.query.mongodb.aggregation.DomainPathBuilder.buildLookUpForSubDomain;
+import static win.doyto.query.mongodb.paging.KeysetToken.KEYSET_KEY;
 
 /**
  * AggregationMetadata
@@ -63,22 +66,36 @@ public class AggregationMetadata<C> {
     private final C collection;
     private final Bson groupBy;
     private final Bson project;
+    @Getter(AccessLevel.NONE)
+    private final Document projectColumns;
     private final Field[] domainFields;
     private final Document groupId;
+    private final boolean facetPaging;
+    @Getter(AccessLevel.NONE)
+    private final Map<Class<?>, QueryPlan> queryPlanMap = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private JoinPlanner joinPlanner;
 
     <V> AggregationMetadata(Class<V> viewClass, C collection) {
         this.viewClass = viewClass;
         this.collection = collection;
         this.groupId = buildGroupId(viewClass);
         this.groupBy = buildGroupBy(viewClass, this.groupId);
-        this.project = buildProject(viewClass, groupBy != null);
+        this.projectColumns = buildProjectColumns(viewClass, groupBy != null);
+        this.project = Aggregates.project(projectColumns);
         this.domainFields = buildDomainFields(viewClass);
+        this.facetPaging = viewClass.isAnnotationPresent(FacetPaging.class);
     }
 
     @SuppressWarnings("unchecked")
     public static <C> AggregationMetadata<C> build(Class<?> viewClass, Function<Class<?>, C> collectionProvider) {
-        return (AggregationMetadata<C>) holder.computeIfAbsent(viewClass, clazz
-                -> new AggregationMetadata<>(clazz, collectionProvider.apply(clazz)));
+        return (AggregationMetadata<C>) holder.computeIfAbsent(viewClass, clazz -> {
+            AggregationMetadata<C> md = new AggregationMetadata<>(clazz, collectionProvider.apply(clazz));
+            if (collectionProvider instanceof CollectionProvider provider) {
+                md.joinPlanner = provider.createJoinPlanner(clazz);
+            }
+            return md;
+        });
     }
 
     private static <V> Field[] buildDomainFields(Class<V> viewClass) {
@@ -125,7 +142,7 @@ public class AggregationMetadata<C> {
         return id;
     }
 
-    private static <V> Bson buildProject(Class<V> viewClass, boolean isAggregated) {
+    private static <V> Document buildProjectColumns(Class<V> viewClass, boolean isAggregated) {
         Field[] fields = ColumnUtil.initFields(viewClass);
         Document columns = new Document();
         if (isAggregated) {
@@ -149,8 +166,7 @@ public class AggregationMetadata<C> {
                 columns.append(fieldName, "$_id." + fieldName); // grouped fields are in _id
             }
         }
-
-        return Aggregates.project(columns);
+        return columns;
     }
 
     private static boolean isManyToOneField(Field field) {
@@ -158,77 +174,173 @@ public class AggregationMetadata<C> {
     }
 
     public <Q extends DoytoQuery> List<Bson> buildAggregation(Q query) {
-        List<Bson> pipeline = build(query, null);
-        return buildPaging(pipeline, query);
+        return build(query, null, pipeline -> buildPaging(pipeline, query));
     }
 
     public <Q extends AggregatedQuery> List<Bson> buildByAggregatedQuery(Q query) {
-        List<Bson> pipeline = build(query.getEntityQuery(), query);
-        return buildPaging(pipeline, query);
+        return build(query.getEntityQuery(), query, pipeline -> buildPaging(pipeline, query));
+    }
+
+    /**
+     * Fetch one more document than the page size to tell whether a next page exists.
+     */
+    public <Q extends DoytoQuery> List<Bson> buildSlice(Q query) {
+        return build(query, null, pipeline -> {
+            pipeline.add(buildSort(query, this.getGroupId().keySet()));
+            pipeline.add(Aggregates.skip(GlobalConfiguration.calcOffset(query)));
+            pipeline.add(Aggregates.limit(query.getPageSize() + 1));
+            pipeline.add(this.getProject());
+        });
     }
 
-    private <Q extends DoytoQuery> List<Bson> buildPaging(List<Bson> pipeline, Q query) {
+    private <Q extends DoytoQuery> void buildPaging(List<Bson> pipeline, Q query) {
         pipeline.add(buildSort(query, this.getGroupId().keySet()));
         if (query.needPaging()) {
             pipeline.add(Aggregates.skip(GlobalConfiguration.calcOffset(query)));
             pipeline.add(Aggregates.limit(query.getPageSize()));
         }
         pipeline.add(this.getProject());
-        return pipeline;
     }
 
-    public <Q extends DoytoQuery> List<Bson> buildCount(Q query) {
-        List<Bson> pipeline = build(query,  null);
-        pipeline.add(Aggregates.count(COUNT_KEY));
-        return pipeline;
+    /**
+     * Build one pipeline for both the page data and the total count:
+     * the filtering stages are shared, then a {@code $facet} stage
+     * with {@code data} for paging and {@code total} for counting.
+     * The lookups for the sub-domains go into {@code data} after the paging,
+     * so that only the documents of the page are joined.
+     */
+    public <Q extends DoytoQuery> List<Bson> buildFacetPage(Q query) {
+        return buildFacetPage(query, 0);
     }
 
-    @SuppressWarnings("java:S3776")
-    private <Q extends DoytoQuery> List<Bson> build(Q query, Having having) {
-        List<Bson> pipeline = new ArrayList<>();
+    /**
+     * @param countLimit count up to {@code countLimit + 1} documents, or all documents when it is 0
+     */
+    public <Q extends DoytoQuery> List<Bson> buildFacetPage(Q query, int countLimit) {
+        List<Bson> total = appendCount(new ArrayList<>(), countLimit);
+        return build(query, null, pipeline -> buildPaging(pipeline, query),
+                     data -> Aggregates.facet(new Facet(FACET_DATA, data), new Facet(FACET_TOTAL, total)));
+    }
 
-        List<Field> lookupFields = new ArrayList<>();
-        List<String> unsetFields = new ArrayList<>();
+    /**
+     * Sort by the query's sort columns followed by {@code _id} to break ties.
+     */
+    public <Q extends DoytoQuery> List<SortKey> buildSortKeys(Q query) {
+        List<SortKey> sortKeys = new ArrayList<>();
+        if (query.getSort() != null) {
+            sortKeys.addAll(MongoFilterBuilder.parseSort(query.getSort(), this.getGroupId().keySet()));
+        }
+        if (sortKeys.stream().noneMatch(sortKey -> MONGO_ID.equals(sortKey.column()))) {
+            sortKeys.add(new SortKey(MONGO_ID, false));
+        }
+        return sortKeys;
+    }
 
-        Field[] fields = ColumnUtil.initFields(query.getClass());
-        for (Field field : fields) {
-            if (field.isAnnotationPresent(DomainPath.class)) {
-                Object value = CommonUtil.readFieldGetter(field, query);
-                if (value instanceof DoytoQuery) {
-                    String subDomainName = field.getName();
+    /**
+     * Build the pipeline seeking the page after the token by a range {@code $match}
+     * instead of {@code $skip}, and project the sort values into {@code _keyset}
+     * for the token of the next page.
+     * One more document than the page size is fetched to tell whether a next page follows.
+     * The range is moved next to the root {@code $match} when the sort keys are not looked up,
+     * so that only the documents of the page are joined.
+     */
+    public <Q extends DoytoQuery> List<Bson> buildKeysetAggregation(Q query, List<SortKey> sortKeys, String token) {
+        Bson range = token == null ? null
+                : Aggregates.match(KeysetToken.buildRange(sortKeys, KeysetToken.decode(sortKeys, token)));
+        List<String> keyset = sortKeys.stream().map(sortKey -> ex(sortKey.column())).toList();
+        return build(query, null, pipeline -> {
+            if (range != null) {
+                pipeline.add(range);
+            }
+            pipeline.add(Aggregates.sort(Sorts.orderBy(sortKeys.stream().map(SortKey::toSort).toList())));
+            pipeline.add(Aggregates.limit(query.getPageSize() + 1));
+            pipeline.add(Aggregates.project(new Document(projectColumns).append(KEYSET_KEY, keyset)));
+        });
+    }
 
-                    lookupFields.add(field);
+    public <Q extends DoytoQuery> List<Bson> buildCount(Q query) {
+        return buildCount(query, 0);
+    }
 
-                    unsetFields.add(subDomainName);
-                }
-            }
+    /**
+     * Stop counting after {@code countLimit + 1} documents to tell whether the limit is exceeded.
+     *
+     * @param countLimit the limit of the count, or 0 for no limit
+     */
+    public <Q extends DoytoQuery> List<Bson> buildCount(Q query, int countLimit) {
+        List<Bson> pipeline = new ArrayList<>();
+        queryPlan(query).appendCountStages(query, pipeline);
+        appendGroupStages(query, null, pipeline);
+        return appendCount(pipeline, countLimit);
+    }
+
+    private static List<Bson> appendCount(List<Bson> pipeline, int countLimit) {
+        if (countLimit > 0) {
+            pipeline.add(Aggregates.limit(countLimit + 1));
         }
-        for (Field lookupField : lookupFields) {
-            String subDomainName = lookupField.getName();
-            DomainPath domainPath = lookupField.getAnnotation(DomainPath.class);
-            pipeline.add(DomainPathBuilder.buildLookUpForNestedQuery(subDomainName, domainPath));
+        pipeline.add(Aggregates.count(COUNT_KEY));
+        return pipeline;
+    }
+
+    /**
+     * Build the filter to count the documents directly,
+     * or return null when the count requires an aggregation
+     * for the nested queries, grouping or having conditions.
+     */
+    public <Q extends DoytoQuery> Bson buildCountFilter(Q query) {
+        boolean hasHaving = query instanceof AggregationQuery aggregationQuery && aggregationQuery.getHaving() != null;
+        if (this.getGroupBy() != null || hasHaving || queryPlan(query).hasNestedQuery(query)) {
+            return null;
         }
-        Bson filter = MongoFilterBuilder.buildFilter(query);
-        if (!(filter instanceof EmptyBson)) {
-            pipeline.add(Aggregates.match(filter));
+        return MongoFilterBuilder.buildFilter(query);
+    }
+
+    private QueryPlan queryPlan(DoytoQuery query) {
+        return queryPlanMap.computeIfAbsent(query.getClass(), queryClass -> new QueryPlan(queryClass, viewClass, domainFields, joinPlanner));
+    }
+
+    private <Q extends DoytoQuery> List<Bson> build(Q query, Having having, Consumer<List<Bson>> tail) {
+        return build(query, having, tail, null);
+    }
+
+    /**
+     * Build the filtering, lookup and grouping stages, append the tail stages,
+     * move the paging ahead of the sub-domain lookups and the {@code $match} on the root fields
+     * next to the root {@code $match} when there is no grouping,
+     * and then project early, right after the root {@code $match},
+     * the fields required by the stages after it.
+     *
+     * @param page build one stage from the stages of the page, i.e. those after the filtering and grouping stages,
+     *             to replace them, or null to keep them
+     */
+    private <Q extends DoytoQuery> List<Bson> build(
+            Q query, Having having, Consumer<List<Bson>> tail, Function<List<Bson>, Bson> page
+    ) {
+        List<Bson> pipeline = new ArrayList<>();
+        QueryPlan.StageIndexes indexes = queryPlan(query).appendStages(query, pipeline);
+        int matched = indexes.matched();
+        int shared = indexes.filtered();
+        int lookedUp = pipeline.size();
+        appendGroupStages(query, having, pipeline);
+        int grouped = pipeline.size();
+        tail.accept(pipeline);
+        if (grouped > lookedUp) {
+            shared = grouped;
+        } else if (lookedUp > matched) {
+            int moved = PagingPushdown.pushDown(pipeline, matched, shared, lookedUp);
+            matched += moved;
+            shared += moved;
         }
-        if (!unsetFields.isEmpty()) {
-            pipeline.add(new Document("$unset", unsetFields));
+        if (page != null) {
+            List<Bson> pageStages = pipeline.subList(shared, pipeline.size());
+            Bson pageStage = page.apply(new ArrayList<>(pageStages));
+            pageStages.clear();
+            pipeline.add(pageStage);
         }
+        return EarlyProjection.pushDown(pipeline, matched);
+    }
 
-        for (Field field : this.getDomainFields()) {
-            String queryFieldName = buildQueryFieldName(field);
-            Object domainQuery = CommonUtil.readField(query, queryFieldName);
-            if (domainQuery instanceof DoytoQuery doytoQuery) {
-                Class<?> relatedViewClass = field.getType();
-                if (Collection.class.isAssignableFrom(field.getType())) {
-                    ParameterizedType type = (ParameterizedType) field.getGenericType();
-                    relatedViewClass = (Class<?>) type.getActualTypeArguments()[0];
-                }
-                Bson lookupDoc = buildLookUpForSubDomain(doytoQuery, relatedViewClass, field);
-                pipeline.add(lookupDoc);
-            }
-        }
+    private <Q extends DoytoQuery> void appendGroupStages(Q query, Having having, List<Bson> pipeline) {
         if (this.getGroupBy() != null) {
             pipeline.add(this.getGroupBy());
         }
@@ -238,11 +350,6 @@ public class AggregationMetadata<C> {
         if (having != null) {
             pipeline.add(buildHaving(having));
         }
-        return pipeline;
-    }
-
-    private String buildQueryFieldName(Field joinField) {
-        return "with" + StringUtils.capitalize(joinField.getName());
     }
 
     private <H extends Having> Bson buildHaving(H having) {
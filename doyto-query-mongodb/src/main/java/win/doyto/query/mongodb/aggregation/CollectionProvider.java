@@ -41,4 +41,10 @@ public class CollectionProvider implements Function<Class<?>, MongoCollection<Do
         MongoDatabase database = mongoClient.getDatabase(mongoEntity.database());
         return database.getCollection(mongoEntity.name());
     }
+
+    JoinPlanner createJoinPlanner(Class<?> viewClass) {
+        Entity mongoEntity = viewClass.getAnnotation(Entity.class);
+        MongoDatabase database = mongoClient.getDatabase(mongoEntity.database());
+        return new JoinPlanner(database, mongoEntity.name());
+    }
 }
@@ -16,6 +16,7 @@
 
 package win.doyto.query.mongodb.aggregation;
 
+import com.mongodb.client.model.Filters;
 import lombok.experimental.UtilityClass;
 import org.bson.Document;
 import org.bson.conversions.Bson;
@@ -28,10 +29,12 @@ import win.doyto.query.relation.DomainPathDetail;
 import win.doyto.query.util.ColumnUtil;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Function;
 
 import static com.mongodb.client.model.Aggregates.*;
 import static win.doyto.query.mongodb.MongoConstant.MONGO_ID;
@@ -45,8 +48,17 @@ import static win.doyto.query.mongodb.MongoConstant.MONGO_ID;
 public class DomainPathBuilder {
     private static final String TABLE_FORMAT = GlobalConfiguration.instance().getTableFormat();
     private static final int PROJECTING = 1;
+    private static final Bson ID_ONLY = new Document(MONGO_ID, PROJECTING);
 
     public static <V> Bson buildLookUpForSubDomain(DoytoQuery query, Class<V> viewClass, Field field) {
+        return prepareLookUpForSubDomain(viewClass, field).apply(query);
+    }
+
+    /**
+     * Resolve the parts of the lookup which depend only on the view field,
+     * leaving the filter of the sub-domain query to be bound per call.
+     */
+    public static <V> Function<DoytoQuery, Bson> prepareLookUpForSubDomain(Class<V> viewClass, Field field) {
         DomainPath domainPath = field.getAnnotation(DomainPath.class);
         String[] paths = domainPath.value();
         String viewName = field.getName();
@@ -57,11 +69,12 @@ public class DomainPathBuilder {
 
         if (domainPathDetail.onlyOneDomain()) {
             String tableName = String.format(TABLE_FORMAT, paths[0]);
-            return lookup0(tableName,
-                           domainPathDetail.getLocalFieldColumn(), domainPathDetail.getForeignFieldColumn(),
-                           Collections.singletonList(project(projectDoc)), viewName);
+            Bson lookup = lookup0(tableName,
+                                  domainPathDetail.getLocalFieldColumn(), domainPathDetail.getForeignFieldColumn(),
+                                  Collections.singletonList(project(projectDoc)), viewName);
+            return query -> lookup;
         }
-        return buildLookupForManyToMany(query, viewName, projectDoc, domainPathDetail);
+        return query -> buildLookupForManyToMany(query, viewName, projectDoc, domainPathDetail);
     }
 
     @SuppressWarnings("java:S117")
@@ -110,10 +123,16 @@ public class DomainPathBuilder {
         return new Document("$lookup", lookupDoc);
     }
 
-    private static String mapIdField(String field) {
+    static String mapIdField(String field) {
         return "id".equals(field) ? MONGO_ID : field;
     }
 
+    /**
+     * Build the lookup populating all the related documents into {@code viewName},
+     * which can then be filtered by a {@code $match} on {@code <viewName>.<field>}.
+     *
+     * @see #buildLookUpForNestedQuery(String, DomainPath, Bson) for the semi-join with the filter pushed down
+     */
     public static Bson buildLookUpForNestedQuery(String viewName, DomainPath domainPathAnno) {
         DomainPathDetail domainPathDetail = DomainPathDetail.buildBy(domainPathAnno, DomainPathBuilder::mapIdField);
         if (domainPathDetail.onlyOneDomain()) {
@@ -143,4 +162,55 @@ public class DomainPathBuilder {
 
         return lookup0(joints[0], domainPathDetail.getLocalFieldColumn(), joinIds[0], pipeline, viewName);
     }
+
+    public static Bson buildLookUpForNestedQuery(String viewName, DomainPath domainPathAnno, Bson filter) {
+        return prepareLookUpForNestedQuery(viewName, domainPathAnno).apply(filter);
+    }
+
+    /**
+     * Resolve a semi-join for the nested query: the filter is pushed into the innermost
+     * pipeline of the lookup, and every level keeps only {@code _id} of the first match,
+     * so that the looked-up array is empty unless a related document matches.
+     *
+     * @see #buildExistence(String)
+     */
+    public static Function<Bson, Bson> prepareLookUpForNestedQuery(String viewName, DomainPath domainPathAnno) {
+        DomainPathDetail domainPathDetail = DomainPathDetail.buildBy(domainPathAnno, DomainPathBuilder::mapIdField);
+        String localField = domainPathDetail.getLocalFieldColumn();
+        String foreignField = domainPathDetail.getForeignFieldColumn();
+        if (domainPathDetail.onlyOneDomain()) {
+            // one-to-many/many-to-one/one-to-one
+            String targetTable = domainPathDetail.getTargetTable();
+            return filter -> lookup0(targetTable, localField, foreignField, firstId(match(filter)), viewName);
+        }
+
+        String[] joints = domainPathDetail.getJoinTables();
+        String[] joinIds = domainPathDetail.getJoinIds();
+        String targetTableName = domainPathDetail.getTargetTable();
+        int n = joinIds.length - 1;
+        Bson existence = match(buildExistence(viewName));
+
+        return filter -> {
+            List<Bson> pipeline = firstId(lookup0(targetTableName, joinIds[n], foreignField,
+                                                  firstId(match(filter)), viewName), existence);
+            for (int i = n - 1; i > 0; i--) {
+                pipeline = firstId(lookup0(joints[i], joinIds[i], joinIds[i], pipeline, viewName), existence);
+            }
+            return lookup0(joints[0], localField, joinIds[0], pipeline, viewName);
+        };
+    }
+
+    private static List<Bson> firstId(Bson... stages) {
+        List<Bson> pipeline = new ArrayList<>(Arrays.asList(stages));
+        pipeline.add(project(ID_ONLY));
+        pipeline.add(limit(1));
+        return pipeline;
+    }
+
+    /**
+     * The filter for the documents with any related document looked up by the nested query.
+     */
+    public static Bson buildExistence(String viewName) {
+        return Filters.ne(viewName, Collections.emptyList());
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb.aggregation;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static win.doyto.query.mongodb.MongoConstant.MONGO_ID;
+
+/**
+ * EarlyProjection
+ * <p>
+ * Insert a {@code $project} right after the root {@code $match} to keep only
+ * the fields which the later stages depend on, so that the lookups
+ * and the grouping do not carry the whole documents.
+ * The pipeline is left unchanged when a later stage is not analyzable,
+ * e.g. it depends on {@code $$ROOT}.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class EarlyProjection {
+    private static final Set<String> REPLACING_STAGES = Set.of("$group", "$project", "$facet", "$count");
+
+    static List<Bson> pushDown(List<Bson> pipeline, int from) {
+        List<BsonDocument> stages = pipeline.subList(from, pipeline.size()).stream().map(Bson::toBsonDocument).toList();
+        if (stages.stream().noneMatch(EarlyProjection::isJoining)) {
+            return pipeline;
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        if (!collectStages(stages, fields, new HashSet<>())) {
+            return pipeline;
+        }
+        fields.remove(MONGO_ID);
+        Document projectDoc = new Document();
+        fields.forEach(field -> projectDoc.append(field, 1));
+        if (projectDoc.isEmpty()) {
+            projectDoc.append(MONGO_ID, 1);
+        }
+        pipeline.add(from, new Document("$project", projectDoc));
+        return pipeline;
+    }
+
+    /**
+     * Tell whether the stage joins or groups the documents, including the stages in a {@code $facet}.
+     */
+    private static boolean isJoining(BsonDocument stage) {
+        if (stage.containsKey("$facet")) {
+            return stage.getDocument("$facet").values().stream().flatMap(facet -> facet.asArray().stream())
+                        .anyMatch(facetStage -> isJoining(facetStage.asDocument()));
+        }
+        return stage.containsKey("$lookup") || stage.containsKey("$group");
+    }
+
+    /**
+     * Collect the fields the stages read from the incoming documents,
+     * until a stage replacing the documents, i.e. {@code $group},
+     * {@code $count}, {@code $facet} or an inclusion {@code $project}.
+     * The fields output by a {@code $lookup} are not read from the incoming documents
+     * by the stages after it.
+     *
+     * @param produced the fields output by the previous lookups
+     * @return false when the dependencies are unknown, or no stage replaces the documents
+     */
+    private static boolean collectStages(List<? extends BsonValue> stages, Set<String> fields, Set<String> produced) {
+        for (BsonValue value : stages) {
+            Map.Entry<String, BsonValue> stage = value.asDocument().entrySet().iterator().next();
+            String name = stage.getKey();
+            Set<String> read = new LinkedHashSet<>();
+            boolean known = collectStage(name, stage.getValue(), read, produced);
+            read.removeAll(produced);
+            fields.addAll(read);
+            if (!known || REPLACING_STAGES.contains(name)) {
+                return known;
+            }
+            if ("$lookup".equals(name)) {
+                produced.add(root(stage.getValue().asDocument().getString("as").getValue()));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return false when the dependencies of the stage are unknown
+     */
+    private static boolean collectStage(String name, BsonValue spec, Set<String> fields, Set<String> produced) {
+        return switch (name) {
+            case "$group", "$project" -> !isExclusion(spec.asDocument()) && collectReferences(spec, fields);
+            case "$facet" -> spec.asDocument().values().stream().allMatch(
+                    facet -> collectStages(facet.asArray(), fields, new HashSet<>(produced)));
+            case "$lookup" -> collectLookup(spec.asDocument(), fields);
+            case "$match" -> collectMatch(spec.asDocument(), fields);
+            case "$sort" -> {
+                spec.asDocument().keySet().forEach(key -> fields.add(root(key)));
+                yield true;
+            }
+            // no dependencies
+            case "$count", "$skip", "$limit", "$unset" -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isExclusion(BsonDocument project) {
+        return project.entrySet().stream().anyMatch(entry -> !MONGO_ID.equals(entry.getKey())
+                && (entry.getValue().isNumber() || entry.getValue().isBoolean()) && !isIncluded(entry.getValue()));
+    }
+
+    private static boolean collectLookup(BsonDocument lookup, Set<String> fields) {
+        if (lookup.containsKey("localField")) {
+            fields.add(root(lookup.getString("localField").getValue()));
+        }
+        return !lookup.containsKey("let") || collectReferences(lookup.get("let"), fields);
+    }
+
+    /**
+     * @return false when the filter depends on unknown fields
+     */
+    static boolean collectMatch(BsonDocument filter, Set<String> fields) {
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            BsonValue value = entry.getValue();
+            if ("$expr".equals(key)) {
+                if (!collectReferences(value, fields)) {
+                    return false;
+                }
+            } else if (key.startsWith("$")) {
+                List<BsonValue> conditions = value.isArray() ? value.asArray() : new BsonArray(List.of(value));
+                for (BsonValue condition : conditions) {
+                    if (!condition.isDocument() || !collectMatch(condition.asDocument(), fields)) {
+                        return false;
+                    }
+                }
+            } else {
+                fields.add(root(key));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collect the field paths like {@code "$a.b"} in the expressions and the inclusions like {@code a: 1}.
+     */
+    private static boolean collectReferences(BsonValue value, Set<String> fields) {
+        if (value.isString()) {
+            String expression = value.asString().getValue();
+            if (expression.startsWith("$$")) {
+                return !expression.startsWith("$$ROOT") && !expression.startsWith("$$CURRENT");
+            }
+            if (expression.startsWith("$")) {
+                fields.add(root(expression.substring(1)));
+            }
+        } else if (value.isArray()) {
+            return value.asArray().stream().allMatch(element -> collectReferences(element, fields));
+        } else if (value.isDocument()) {
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                BsonValue element = entry.getValue();
+                if (!entry.getKey().startsWith("$") && (element.isNumber() || element.isBoolean())) {
+                    if (isIncluded(element)) {
+                        fields.add(root(entry.getKey()));
+                    }
+                } else if (!collectReferences(element, fields)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIncluded(BsonValue value) {
+        return value.isBoolean() ? value.asBoolean().getValue() : value.asNumber().intValue() != 0;
+    }
+
+    private static String root(String path) {
+        int dot = path.indexOf('.');
+        return dot < 0 ? path : path.substring(0, dot);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb.aggregation;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.Projections;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import win.doyto.query.mongodb.annotation.JoinOrder;
+import win.doyto.query.relation.DomainPathDetail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.mongodb.client.model.Filters.in;
+
+/**
+ * JoinPlanner
+ * <p>
+ * Resolve a many-to-many nested query by a chain of finds: query the target
+ * collection by the nested filter, walk the join collections backwards
+ * to collect the local ids, and filter the main collection by {@code $in}.
+ * It falls back to the forward join once any hop collects more than {@code maxIds} values.
+ * The estimated document counts used by {@link JoinOrder.Direction#AUTO}
+ * are cached for a minute.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Slf4j
+final class JoinPlanner {
+    private static final long COUNT_TTL = TimeUnit.MINUTES.toNanos(1);
+
+    private final MongoDatabase database;
+    private final String mainTable;
+    private final Map<String, CachedCount> countMap = new ConcurrentHashMap<>();
+
+    JoinPlanner(MongoDatabase database, String mainTable) {
+        this.database = database;
+        this.mainTable = mainTable;
+    }
+
+    /**
+     * Join reversely in the session of the current {@link JoinScope},
+     * reusing the result resolved for the same filter within the scope.
+     *
+     * @return the {@code $in} filter for the main collection,
+     * or null to join forward by the lookups
+     */
+    Bson reverse(DomainPathDetail domainPathDetail, JoinOrder joinOrder, Bson filter) {
+        JoinScope scope = JoinScope.current();
+        if (scope == null) {
+            return null;
+        }
+        return scope.resolve(List.of(domainPathDetail, filter.toBsonDocument()),
+                             session -> reverse(session, domainPathDetail, joinOrder, filter));
+    }
+
+    private Bson reverse(ClientSession session, DomainPathDetail domainPathDetail, JoinOrder joinOrder, Bson filter) {
+        int maxIds = joinOrder.maxIds();
+        if (joinOrder.value() == JoinOrder.Direction.AUTO
+                && !isSelective(session, domainPathDetail.getTargetTable(), filter, maxIds)) {
+            return null;
+        }
+        String foreignField = DomainPathBuilder.mapIdField(domainPathDetail.getForeignFieldColumn());
+        List<Object> values = collect(session, domainPathDetail.getTargetTable(), filter, foreignField, maxIds);
+        String[] joints = domainPathDetail.getJoinTables();
+        String[] joinIds = domainPathDetail.getJoinIds();
+        for (int i = joints.length - 1; i >= 0 && values.size() <= maxIds && !values.isEmpty(); i--) {
+            Bson joinFilter = in(DomainPathBuilder.mapIdField(joinIds[i + 1]), values);
+            values = collect(session, joints[i], joinFilter, DomainPathBuilder.mapIdField(joinIds[i]), maxIds);
+        }
+        if (values.size() > maxIds) {
+            log.debug("Join {} forward for more than {} ids", domainPathDetail.getTargetTable(), maxIds);
+            return null;
+        }
+        log.debug("Join {} reversely into {} ids", domainPathDetail.getTargetTable(), values.size());
+        return in(DomainPathBuilder.mapIdField(domainPathDetail.getLocalFieldColumn()), values);
+    }
+
+    /**
+     * Tell whether the nested filter matches no more than {@code maxIds} target documents
+     * by a capped count, while the main collection is estimated to be larger than that.
+     */
+    private boolean isSelective(ClientSession session, String targetTable, Bson filter, int maxIds) {
+        if (estimatedCount(mainTable) <= maxIds) {
+            return false;
+        }
+        long matched = database.getCollection(targetTable)
+                               .countDocuments(session, filter, new CountOptions().limit(maxIds + 1));
+        if (matched > maxIds) {
+            log.debug("Join {} forward for more than {} matched", targetTable, maxIds);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Collect the distinct values of the field, stopping at {@code maxValues + 1} values.
+     */
+    private List<Object> collect(ClientSession session, String table, Bson filter, String field, int maxValues) {
+        FindIterable<Document> documents = database.getCollection(table).find(session, filter)
+                                                   .projection(Projections.include(field));
+        Set<Object> values = new LinkedHashSet<>();
+        try (MongoCursor<Document> cursor = documents.cursor()) {
+            while (cursor.hasNext() && values.size() <= maxValues) {
+                Object value = cursor.next().get(field);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+        }
+        return new ArrayList<>(values);
+    }
+
+    private long estimatedCount(String table) {
+        long now = System.nanoTime();
+        CachedCount cached = countMap.get(table);
+        if (cached == null || now - cached.countedAt > COUNT_TTL) {
+            cached = new CachedCount(database.getCollection(table).estimatedDocumentCount(), now);
+            countMap.put(table, cached);
+        }
+        return cached.count;
+    }
+
+    private record CachedCount(long count, long countedAt) {
+    }
+}
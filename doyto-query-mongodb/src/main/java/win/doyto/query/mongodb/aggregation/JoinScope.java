@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.aggregation;
+
+import com.mongodb.client.ClientSession;
+import org.bson.conversions.Bson;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * JoinScope
+ * <p>
+ * Scope of a data access call in which the reverse joins are resolved.
+ * The finds run in the session of the caller, and each nested filter is resolved
+ * only once, so the query and the count of a page share the same chain of finds.
+ * Outside a scope, the nested queries are joined forward by the lookups.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public final class JoinScope {
+    private static final ThreadLocal<JoinScope> CURRENT = new ThreadLocal<>();
+
+    private final ClientSession session;
+    private final Map<Object, Optional<Bson>> resolved = new HashMap<>();
+
+    private JoinScope(ClientSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Run the call in a scope with the session, or in the enclosing scope if any.
+     */
+    public static <T> T run(ClientSession session, Supplier<T> call) {
+        if (CURRENT.get() != null) {
+            return call.get();
+        }
+        CURRENT.set(new JoinScope(session));
+        try {
+            return call.get();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    static JoinScope current() {
+        return CURRENT.get();
+    }
+
+    Bson resolve(Object key, Function<ClientSession, Bson> resolver) {
+        return resolved.computeIfAbsent(key, k -> Optional.ofNullable(resolver.apply(session))).orElse(null);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb.aggregation;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PagingPushdown
+ * <p>
+ * Move the {@code $sort}, {@code $skip} and {@code $limit} stages ahead of
+ * the lookups for the sub-domains, so that only the documents of the page
+ * are joined. The lookups neither filter nor reorder the documents,
+ * so the move is safe as long as the sort keys do not reference
+ * the fields populated by the lookups.
+ * A {@code $match} ahead of the paging, e.g. the range of a keyset page,
+ * is moved next to the root {@code $match} under the same condition.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class PagingPushdown {
+
+    /**
+     * @param matched the index after the root {@code $match}
+     * @param from    the index of the first lookup for the sub-domains
+     * @param to      the index after the last lookup, where the tail stages start
+     * @return the number of the {@code $match} stages moved next to the root {@code $match}
+     */
+    static int pushDown(List<Bson> pipeline, int matched, int from, int to) {
+        Set<String> lookedUpFields = new HashSet<>();
+        for (Bson stage : pipeline.subList(matched, to)) {
+            BsonDocument lookup = stage.toBsonDocument();
+            if (lookup.containsKey("$lookup")) {
+                lookedUpFields.add(lookup.getDocument("$lookup").getString("as").getValue());
+            }
+        }
+        List<Bson> matches = new ArrayList<>();
+        List<Bson> moved = new ArrayList<>();
+        for (Bson stage : pipeline.subList(to, pipeline.size())) {
+            BsonDocument document = stage.toBsonDocument();
+            if (moved.isEmpty() && isMovableMatch(document, lookedUpFields)) {
+                matches.add(stage);
+            } else if (isMovable(document, lookedUpFields)) {
+                moved.add(stage);
+            } else {
+                break;
+            }
+        }
+        pipeline.subList(to, to + matches.size() + moved.size()).clear();
+        pipeline.addAll(from, moved);
+        pipeline.addAll(matched, matches);
+        return matches.size();
+    }
+
+    private static boolean isMovableMatch(BsonDocument stage, Set<String> lookedUpFields) {
+        Set<String> fields = new HashSet<>();
+        return stage.containsKey("$match") && EarlyProjection.collectMatch(stage.getDocument("$match"), fields)
+                && fields.stream().noneMatch(lookedUpFields::contains);
+    }
+
+    private static boolean isMovable(BsonDocument stage, Set<String> lookedUpFields) {
+        if (stage.containsKey("$skip") || stage.containsKey("$limit")) {
+            return true;
+        }
+        return stage.containsKey("$sort") && stage.getDocument("$sort").keySet().stream()
+                                                  .map(key -> key.split("\\.", 2)[0])
+                                                  .noneMatch(lookedUpFields::contains);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.aggregation;
+
+import com.mongodb.client.model.Aggregates;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import win.doyto.query.annotation.DomainPath;
+import win.doyto.query.core.DoytoQuery;
+import win.doyto.query.mongodb.annotation.JoinOrder;
+import win.doyto.query.mongodb.filter.EmptyBson;
+import win.doyto.query.mongodb.filter.FieldAccessor;
+import win.doyto.query.mongodb.filter.MongoFilterBuilder;
+import win.doyto.query.relation.DomainPathDetail;
+import win.doyto.query.util.ColumnUtil;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * QueryPlan
+ * <p>
+ * The relation fields of a query class against a view class, resolved once.
+ * The lookup and unset stages only depend on which relation fields are populated,
+ * so they are cached as a shape per bitmask of the populated fields,
+ * while the filters, including those pushed into the nested lookups, are bound per call.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+final class QueryPlan {
+    private static final int MAX_CACHED_FIELDS = Long.SIZE;
+
+    private final FieldAccessor[] nestedAccessors;
+    private final Function<Bson, Bson>[] nestedLookups;
+    private final String[] nestedNames;
+    private final Bson[] nestedExistences;
+    private final Function<Bson, Bson>[] reverseJoins;
+    private final FieldAccessor[] withAccessors;
+    private final Function<DoytoQuery, Bson>[] subDomainLookups;
+    private final Map<Long, Shape> shapeMap = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    QueryPlan(Class<?> queryClass, Class<?> viewClass, Field[] domainFields, JoinPlanner joinPlanner) {
+        List<Field> nestedFields = Arrays.stream(ColumnUtil.initFields(queryClass))
+                                         .filter(field -> field.isAnnotationPresent(DomainPath.class))
+                                         .toList();
+        int nestedSize = nestedFields.size();
+        this.nestedAccessors = new FieldAccessor[nestedSize];
+        this.nestedLookups = new Function[nestedSize];
+        this.nestedNames = new String[nestedSize];
+        this.nestedExistences = new Bson[nestedSize];
+        this.reverseJoins = new Function[nestedSize];
+        for (int i = 0; i < nestedSize; i++) {
+            Field field = nestedFields.get(i);
+            nestedAccessors[i] = new FieldAccessor(field);
+            nestedNames[i] = field.getName();
+            nestedExistences[i] = DomainPathBuilder.buildExistence(field.getName());
+            nestedLookups[i] = DomainPathBuilder.prepareLookUpForNestedQuery(field.getName(), field.getAnnotation(DomainPath.class));
+            reverseJoins[i] = prepareReverseJoin(field, joinPlanner);
+        }
+
+        List<FieldAccessor> withList = new ArrayList<>();
+        List<Function<DoytoQuery, Bson>> lookupList = new ArrayList<>();
+        for (Field domainField : domainFields) {
+            Field withField = findField(queryClass, "with" + StringUtils.capitalize(domainField.getName()));
+            if (withField != null) {
+                withList.add(new FieldAccessor(withField));
+                lookupList.add(DomainPathBuilder.prepareLookUpForSubDomain(resolveViewClass(domainField), domainField));
+            }
+        }
+        this.withAccessors = withList.toArray(FieldAccessor[]::new);
+        this.subDomainLookups = lookupList.toArray(Function[]::new);
+    }
+
+    private static Function<Bson, Bson> prepareReverseJoin(Field field, JoinPlanner joinPlanner) {
+        JoinOrder joinOrder = field.getAnnotation(JoinOrder.class);
+        if (joinPlanner == null || joinOrder == null || joinOrder.value() == JoinOrder.Direction.FORWARD) {
+            return null;
+        }
+        DomainPathDetail domainPathDetail = DomainPathDetail.buildBy(
+                field.getAnnotation(DomainPath.class), DomainPathBuilder::mapIdField);
+        if (domainPathDetail.onlyOneDomain()) {
+            return null;
+        }
+        return filter -> joinPlanner.reverse(domainPathDetail, joinOrder, filter);
+    }
+
+    private static Field findField(Class<?> clazz, String name) {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // look up in the superclass
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> resolveViewClass(Field field) {
+        if (Collection.class.isAssignableFrom(field.getType())) {
+            ParameterizedType type = (ParameterizedType) field.getGenericType();
+            return (Class<?>) type.getActualTypeArguments()[0];
+        }
+        return field.getType();
+    }
+
+    /**
+     * Append the lookup, match and unset stages for the query to the pipeline.
+     *
+     * @return the indexes of the first stage after the root {@code $match}
+     * and of the first stage after the filtering stages
+     */
+    StageIndexes appendStages(DoytoQuery query, List<Bson> pipeline) {
+        return appendStages(query, pipeline, true);
+    }
+
+    /**
+     * Append only the stages which filter the documents,
+     * since the relations populated for the view never change the count.
+     */
+    void appendCountStages(DoytoQuery query, List<Bson> pipeline) {
+        appendStages(query, pipeline, false);
+    }
+
+    boolean hasNestedQuery(DoytoQuery query) {
+        for (FieldAccessor nestedAccessor : nestedAccessors) {
+            if (nestedAccessor.get(query) instanceof DoytoQuery) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private StageIndexes appendStages(DoytoQuery query, List<Bson> pipeline, boolean populate) {
+        int nestedSize = nestedAccessors.length;
+        int total = nestedSize + withAccessors.length;
+        List<Bson> rootFilters = new ArrayList<>();
+        Bson rootFilter = MongoFilterBuilder.buildRootFilter(query);
+        if (!(rootFilter instanceof EmptyBson)) {
+            rootFilters.add(rootFilter);
+        }
+        Bson[] nestedFilters = new Bson[nestedSize];
+        DoytoQuery[] subDomainQueries = new DoytoQuery[withAccessors.length];
+        boolean[] present = new boolean[total];
+        long mask = 0L;
+        for (int i = 0; i < nestedSize; i++) {
+            if (nestedAccessors[i].get(query) instanceof DoytoQuery nestedQuery) {
+                Bson nestedFilter = MongoFilterBuilder.buildFilter(nestedQuery);
+                Bson reverseFilter = nestedFilter instanceof EmptyBson || reverseJoins[i] == null
+                        ? null : reverseJoins[i].apply(nestedFilter);
+                if (reverseFilter != null) {
+                    rootFilters.add(reverseFilter);
+                } else if (!(nestedFilter instanceof EmptyBson)) {
+                    nestedFilters[i] = nestedFilter;
+                    present[i] = true;
+                    mask |= 1L << i;
+                }
+            }
+        }
+        for (int i = 0; populate && i < withAccessors.length; i++) {
+            if (withAccessors[i].get(query) instanceof DoytoQuery doytoQuery) {
+                subDomainQueries[i] = doytoQuery;
+                present[nestedSize + i] = true;
+                mask |= 1L << (nestedSize + i);
+            }
+        }
+
+        Shape shape = total <= MAX_CACHED_FIELDS
+                ? shapeMap.computeIfAbsent(mask, key -> buildShape(present))
+                : buildShape(present);
+
+        if (!rootFilters.isEmpty()) {
+            pipeline.add(Aggregates.match(MongoFilterBuilder.combine(rootFilters)));
+        }
+        int matched = pipeline.size();
+        List<Bson> existences = new ArrayList<>();
+        for (int i : shape.nestedIndexes) {
+            pipeline.add(nestedLookups[i].apply(nestedFilters[i]));
+            existences.add(nestedExistences[i]);
+        }
+        if (!existences.isEmpty()) {
+            pipeline.add(Aggregates.match(MongoFilterBuilder.combine(existences)));
+        }
+        if (populate && shape.unset != null) {
+            pipeline.add(shape.unset);
+        }
+        int filtered = pipeline.size();
+        for (int i : shape.subDomainIndexes) {
+            pipeline.add(subDomainLookups[i].apply(subDomainQueries[i]));
+        }
+        return new StageIndexes(matched, filtered);
+    }
+
+    private Shape buildShape(boolean[] present) {
+        int nestedSize = nestedAccessors.length;
+        int[] nestedIndexes = new int[nestedSize];
+        List<String> unsetFields = new ArrayList<>();
+        for (int i = 0; i < nestedSize; i++) {
+            if (present[i]) {
+                nestedIndexes[unsetFields.size()] = i;
+                unsetFields.add(nestedNames[i]);
+            }
+        }
+        int[] subDomainIndexes = new int[withAccessors.length];
+        int count = 0;
+        for (int i = 0; i < withAccessors.length; i++) {
+            if (present[nestedSize + i]) {
+                subDomainIndexes[count++] = i;
+            }
+        }
+        Bson unset = unsetFields.isEmpty() ? null : new Document("$unset", unsetFields);
+        return new Shape(Arrays.copyOf(nestedIndexes, unsetFields.size()), unset, Arrays.copyOf(subDomainIndexes, count));
+    }
+
+    private record Shape(int[] nestedIndexes, Bson unset, int[] subDomainIndexes) {
+    }
+
+    record StageIndexes(int matched, int filtered) {
+    }
+}
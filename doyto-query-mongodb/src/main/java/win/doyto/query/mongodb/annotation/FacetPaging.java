@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * FacetPaging
+ * <p>
+ * Fetch the page data and the total count of the annotated view
+ * in one aggregation by a {@code $facet} stage. Since the facet
+ * result must fit in a single 16MB document, the page falls back
+ * to two queries when the limit is exceeded.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface FacetPaging {
+}
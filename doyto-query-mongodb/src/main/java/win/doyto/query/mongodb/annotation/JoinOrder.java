@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * JoinOrder
+ * <p>
+ * Choose how a many-to-many nested query annotated by {@code @DomainPath} is joined.
+ * The reverse join queries the target collection first, walks the join collections
+ * backwards and filters the main collection by {@code $in} of the collected ids,
+ * which is far cheaper than the forward lookups for a selective nested query.
+ * <p>
+ * The reverse join runs finds, so it is only resolved by the data accesses and the query clients,
+ * within a {@link win.doyto.query.mongodb.aggregation.JoinScope}. A pipeline built by
+ * {@link win.doyto.query.mongodb.aggregation.AggregationMetadata} outside a scope joins forward.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Target(FIELD)
+@Retention(RUNTIME)
+public @interface JoinOrder {
+
+    Direction value() default Direction.AUTO;
+
+    /**
+     * Join forward instead when the nested query matches more target documents than this.
+     */
+    int maxIds() default 1000;
+
+    enum Direction {
+        /**
+         * Join reversely when the nested query matches no more than {@link #maxIds()} target documents
+         * by a capped count, unless the main collection is estimated to be no larger than that,
+         * where the forward join is cheap anyway.
+         */
+        AUTO,
+        FORWARD,
+        REVERSE
+    }
+}
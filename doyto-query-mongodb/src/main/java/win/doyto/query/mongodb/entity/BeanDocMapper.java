@@ -16,22 +16,16 @@
 
 package win.doyto.query.mongodb.entity;
 
-import lombok.AllArgsConstructor;
-import org.bson.Document;
-import win.doyto.query.util.BeanUtil;
-
 /**
  * BeanDocMapper
+ * <p>
+ * Map the documents by Jackson, streaming the BSON tokens through {@link JacksonBsonCodec}.
  *
  * @author f0rb on 2024/8/14
  */
-@AllArgsConstructor
-public class BeanDocMapper<V> implements DocMapper<V> {
-
-    private Class<V> viewClass;
+public class BeanDocMapper<V> extends CodecDocMapper<V> {
 
-    @Override
-    public V map(Document document) {
-        return BeanUtil.parse(document.toJson(), this.viewClass);
+    public BeanDocMapper(Class<V> viewClass) {
+        super(viewClass, new JacksonBsonCodec<>(viewClass, true));
     }
 }
@@ -21,6 +21,7 @@ import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
 import org.bson.conversions.Bson;
 
 import java.io.IOException;
@@ -28,7 +29,7 @@ import java.io.IOException;
 /**
  * BsonDeserializer
  * <p>
- * Used by {@link win.doyto.query.util.BeanUtil}
+ * Used by {@link win.doyto.query.util.BeanUtil} and {@link JacksonBsonCodec}
  *
  * @author f0rb on 2021-12-04
  */
@@ -37,6 +38,11 @@ public class BsonDeserializer extends JsonDeserializer<Bson> {
 
     @Override
     public Bson deserialize(JsonParser p, DeserializationContext context) throws IOException {
+        if (context.getAttribute(BsonTokenBuffer.class) != null) {
+            BsonDocument document = new BsonDocument();
+            BsonTokenBuffer.write(p, new BsonDocumentWriter(document));
+            return document;
+        }
         TreeNode treeNode = p.readValueAsTree();
         return BsonDocument.parse(treeNode.toString());
     }
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.DateDeserializers;
+import com.fasterxml.jackson.databind.deser.std.PrimitiveArrayDeserializers;
+import com.fasterxml.jackson.databind.deser.std.UUIDDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.DateSerializer;
+import com.fasterxml.jackson.databind.ser.std.UUIDSerializer;
+import org.bson.BsonBinary;
+import org.bson.BsonBinarySubType;
+import org.bson.UuidRepresentation;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * BsonModule
+ * <p>
+ * Jackson module writing {@link Date}, {@link Decimal128} and {@link Bson} as the native BSON types
+ * through {@link BsonTokenBuffer}, and reading them back from the embedded objects,
+ * along with {@code byte[]} and {@link UUID} from the embedded {@link BsonBinary}.
+ * A {@link UUID} is written as the standard UUID subtype of the binary.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public class BsonModule extends SimpleModule {
+
+    public BsonModule() {
+        super(BsonModule.class.getSimpleName());
+        addSerializer(Date.class, new BsonDateSerializer());
+        addDeserializer(Date.class, new BsonDateDeserializer());
+        addSerializer(Decimal128.class, new Decimal128Serializer());
+        addDeserializer(Decimal128.class, new Decimal128Deserializer());
+        addSerializer(Bson.class, new BsonSerializer());
+        addDeserializer(Bson.class, new BsonDeserializer());
+        addDeserializer(byte[].class, new BytesDeserializer());
+        addSerializer(UUID.class, new BsonUuidSerializer());
+        addDeserializer(UUID.class, new BsonUuidDeserializer());
+    }
+
+    static class BsonDateSerializer extends DateSerializer {
+        @Override
+        public void serialize(Date value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (gen instanceof BsonTokenBuffer) {
+                gen.writeEmbeddedObject(value);
+            } else {
+                super.serialize(value, gen, provider);
+            }
+        }
+    }
+
+    static class BsonDateDeserializer extends DateDeserializers.DateDeserializer {
+        @Override
+        public Date deserialize(JsonParser p, DeserializationContext context) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT && p.getEmbeddedObject() instanceof Date date) {
+                return date;
+            }
+            return super.deserialize(p, context);
+        }
+    }
+
+    static class Decimal128Serializer extends JsonSerializer<Decimal128> {
+        @Override
+        public void serialize(Decimal128 value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (gen instanceof BsonTokenBuffer) {
+                gen.writeEmbeddedObject(value);
+            } else if (value.isNaN() || value.isInfinite()) {
+                gen.writeString(value.toString());
+            } else {
+                gen.writeNumber(value.bigDecimalValue());
+            }
+        }
+    }
+
+    static class BsonSerializer extends JsonSerializer<Bson> {
+        @Override
+        public void serialize(Bson value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (gen instanceof BsonTokenBuffer) {
+                gen.writeEmbeddedObject(value.toBsonDocument());
+            } else {
+                gen.writeRawValue(value.toBsonDocument().toJson());
+            }
+        }
+    }
+
+    static class BytesDeserializer extends JsonDeserializer<byte[]> {
+        private static final JsonDeserializer<?> DELEGATE = PrimitiveArrayDeserializers.forType(byte.class);
+
+        @Override
+        public byte[] deserialize(JsonParser p, DeserializationContext context) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT && p.getEmbeddedObject() instanceof BsonBinary binary) {
+                return binary.getData();
+            }
+            return (byte[]) DELEGATE.deserialize(p, context);
+        }
+    }
+
+    static class BsonUuidSerializer extends UUIDSerializer {
+        @Override
+        public void serialize(UUID value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (gen instanceof BsonTokenBuffer) {
+                gen.writeEmbeddedObject(new BsonBinary(value));
+            } else {
+                super.serialize(value, gen, provider);
+            }
+        }
+    }
+
+    static class BsonUuidDeserializer extends UUIDDeserializer {
+        @Override
+        public UUID deserialize(JsonParser p, DeserializationContext context) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT && p.getEmbeddedObject() instanceof BsonBinary binary) {
+                if (binary.getType() == BsonBinarySubType.UUID_STANDARD.getValue()) {
+                    return binary.asUuid();
+                }
+                if (binary.getType() == BsonBinarySubType.UUID_LEGACY.getValue()) {
+                    return binary.asUuid(UuidRepresentation.JAVA_LEGACY);
+                }
+                return _deserializeEmbedded(binary.getData(), context);
+            }
+            return super.deserialize(p, context);
+        }
+    }
+
+    static class Decimal128Deserializer extends JsonDeserializer<Decimal128> {
+        @Override
+        public Decimal128 deserialize(JsonParser p, DeserializationContext context) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT && p.getEmbeddedObject() instanceof Decimal128 decimal) {
+                return decimal;
+            }
+            if (p.currentToken() == JsonToken.VALUE_STRING) {
+                return Decimal128.parse(p.getText());
+            }
+            return new Decimal128(p.getDecimalValue());
+        }
+    }
+}
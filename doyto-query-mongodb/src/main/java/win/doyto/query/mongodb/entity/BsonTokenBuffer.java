@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.bson.*;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+
+/**
+ * BsonTokenBuffer
+ * <p>
+ * Bridge between Jackson and BSON: the buffer is filled with the tokens
+ * read from a {@link BsonReader}, or serves as the {@link com.fasterxml.jackson.core.JsonGenerator}
+ * whose tokens are replayed to a {@link BsonWriter}.
+ * {@link ObjectId}, {@link Date}, {@link Decimal128} and {@link BsonBinary} are kept as embedded objects
+ * so that they are mapped to the native BSON types, with the subtype of the binary preserved.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public class BsonTokenBuffer extends TokenBuffer {
+    private static final BsonValueCodec BSON_VALUE_CODEC = new BsonValueCodec();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    public BsonTokenBuffer(ObjectCodec codec) {
+        super(codec, false);
+    }
+
+    /**
+     * Read the document at the current position of the reader into a new buffer.
+     */
+    public static BsonTokenBuffer read(BsonReader reader, ObjectCodec codec) throws IOException {
+        BsonTokenBuffer buffer = new BsonTokenBuffer(codec);
+        buffer.readDocument(reader);
+        return buffer;
+    }
+
+    private void readDocument(BsonReader reader) throws IOException {
+        reader.readStartDocument();
+        writeStartObject();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            writeFieldName(reader.readName());
+            readValue(reader);
+        }
+        reader.readEndDocument();
+        writeEndObject();
+    }
+
+    private void readValue(BsonReader reader) throws IOException {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT -> readDocument(reader);
+            case ARRAY -> {
+                reader.readStartArray();
+                writeStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    readValue(reader);
+                }
+                reader.readEndArray();
+                writeEndArray();
+            }
+            case STRING -> writeString(reader.readString());
+            case SYMBOL -> writeString(reader.readSymbol());
+            case INT32 -> writeNumber(reader.readInt32());
+            case INT64 -> writeNumber(reader.readInt64());
+            case DOUBLE -> writeNumber(reader.readDouble());
+            case DECIMAL128 -> {
+                Decimal128 decimal = reader.readDecimal128();
+                if (decimal.isNaN() || decimal.isInfinite()) {
+                    writeEmbeddedObject(decimal);
+                } else {
+                    writeNumber(decimal.bigDecimalValue());
+                }
+            }
+            case BOOLEAN -> writeBoolean(reader.readBoolean());
+            case NULL -> {
+                reader.readNull();
+                writeNull();
+            }
+            case UNDEFINED -> {
+                reader.readUndefined();
+                writeNull();
+            }
+            case OBJECT_ID -> writeEmbeddedObject(reader.readObjectId());
+            case DATE_TIME -> writeEmbeddedObject(new Date(reader.readDateTime()));
+            case BINARY -> writeEmbeddedObject(reader.readBinaryData());
+            default -> writeEmbeddedObject(BSON_VALUE_CODEC.decode(reader, DECODER_CONTEXT));
+        }
+    }
+
+    /**
+     * Write the buffered tokens to the writer.
+     */
+    public void writeTo(BsonWriter writer) throws IOException {
+        try (JsonParser parser = asParser()) {
+            write(parser, writer);
+        }
+    }
+
+    /**
+     * Write the value at the current token of the parser to the writer,
+     * leaving the parser at the last token of the value.
+     */
+    public static void write(JsonParser parser, BsonWriter writer) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        writeValue(parser, token, writer);
+    }
+
+    private static void writeValue(JsonParser parser, JsonToken token, BsonWriter writer) throws IOException {
+        switch (token) {
+            case START_OBJECT -> {
+                writer.writeStartDocument();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    writer.writeName(parser.currentName());
+                    writeValue(parser, parser.nextToken(), writer);
+                }
+                writer.writeEndDocument();
+            }
+            case START_ARRAY -> {
+                writer.writeStartArray();
+                JsonToken next;
+                while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    writeValue(parser, next, writer);
+                }
+                writer.writeEndArray();
+            }
+            case VALUE_STRING -> writer.writeString(parser.getText());
+            case VALUE_NUMBER_INT -> writeInteger(parser, writer);
+            case VALUE_NUMBER_FLOAT -> {
+                if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+                    writer.writeDecimal128(new Decimal128(parser.getDecimalValue()));
+                } else {
+                    writer.writeDouble(parser.getDoubleValue());
+                }
+            }
+            case VALUE_TRUE, VALUE_FALSE -> writer.writeBoolean(parser.getBooleanValue());
+            case VALUE_NULL -> writer.writeNull();
+            case VALUE_EMBEDDED_OBJECT -> writeEmbedded(parser, parser.getEmbeddedObject(), writer);
+            default -> throw new JsonParseException(parser, "Unexpected token for BSON: " + token);
+        }
+    }
+
+    private static void writeInteger(JsonParser parser, BsonWriter writer) throws IOException {
+        switch (parser.getNumberType()) {
+            case INT -> writer.writeInt32(parser.getIntValue());
+            case LONG -> writer.writeInt64(parser.getLongValue());
+            default -> {
+                BigInteger value = parser.getBigIntegerValue();
+                if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+                    writer.writeInt64(value.longValue());
+                } else {
+                    writer.writeDecimal128(new Decimal128(new BigDecimal(value)));
+                }
+            }
+        }
+    }
+
+    private static void writeEmbedded(JsonParser parser, Object value, BsonWriter writer) throws IOException {
+        if (value == null) {
+            writer.writeNull();
+        } else if (value instanceof ObjectId objectId) {
+            writer.writeObjectId(objectId);
+        } else if (value instanceof Date date) {
+            writer.writeDateTime(date.getTime());
+        } else if (value instanceof Decimal128 decimal) {
+            writer.writeDecimal128(decimal);
+        } else if (value instanceof byte[] bytes) {
+            writer.writeBinaryData(new BsonBinary(bytes));
+        } else if (value instanceof BsonValue bsonValue) {
+            BSON_VALUE_CODEC.encode(writer, bsonValue, ENCODER_CONTEXT);
+        } else {
+            throw new JsonParseException(parser, "Unsupported embedded object for BSON: " + value.getClass().getName());
+        }
+    }
+}
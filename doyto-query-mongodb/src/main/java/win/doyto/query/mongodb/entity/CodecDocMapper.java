@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoIterable;
+import lombok.Getter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.util.List;
+
+import static org.bson.codecs.configuration.CodecRegistries.*;
+
+/**
+ * CodecDocMapper
+ * <p>
+ * Decode the query results with a {@link Codec} of the view class.
+ * The results are decoded from the driver's reader directly when
+ * the collection is bound to the view class by {@link #bind}.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public class CodecDocMapper<V> implements DocMapper<V> {
+    protected static final CodecRegistry ENTITY_CODEC_REGISTRY = fromRegistries(
+            MongoClientSettings.getDefaultCodecRegistry(), fromProviders(new EntityCodecProvider()));
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    private final Class<V> viewClass;
+    @Getter
+    private final Codec<V> codec;
+    @Getter
+    private final CodecRegistry codecRegistry;
+
+    public CodecDocMapper(Class<V> viewClass) {
+        this(viewClass, ENTITY_CODEC_REGISTRY.get(viewClass));
+    }
+
+    protected CodecDocMapper(Class<V> viewClass, Codec<V> codec) {
+        this.viewClass = viewClass;
+        this.codec = codec;
+        this.codecRegistry = fromRegistries(fromCodecs(codec), ENTITY_CODEC_REGISTRY);
+    }
+
+    @Override
+    public V map(Document document) {
+        BsonDocument bsonDocument = document.toBsonDocument(Document.class, codecRegistry);
+        return codec.decode(new BsonDocumentReader(bsonDocument), DECODER_CONTEXT);
+    }
+
+    @Override
+    public V map(BsonDocument document) {
+        if (document instanceof RawBsonDocument rawBsonDocument) {
+            return rawBsonDocument.decode(codec);
+        }
+        return codec.decode(new BsonDocumentReader(document), DECODER_CONTEXT);
+    }
+
+    public MongoCollection<V> bind(MongoCollection<?> collection) {
+        return collection.withDocumentClass(viewClass).withCodecRegistry(codecRegistry);
+    }
+
+    @Override
+    public MongoIterable<V> aggregate(MongoCollection<Document> collection, ClientSession session, List<? extends Bson> pipeline) {
+        return bind(collection).aggregate(session, pipeline);
+    }
+
+    @Override
+    public MongoIterable<V> find(MongoCollection<Document> collection, ClientSession session, Bson filter) {
+        return bind(collection).find(session, filter);
+    }
+}
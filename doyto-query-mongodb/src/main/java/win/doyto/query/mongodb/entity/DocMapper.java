@@ -16,7 +16,17 @@
 
 package win.doyto.query.mongodb.entity;
 
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoIterable;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
 import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.conversions.Bson;
+
+import java.util.List;
 
 /**
  * DocMapper
@@ -25,4 +35,16 @@ import org.bson.Document;
  */
 public interface DocMapper<V> {
     V map(Document document);
+
+    default V map(BsonDocument document) {
+        return map(new DocumentCodec().decode(new BsonDocumentReader(document), DecoderContext.builder().build()));
+    }
+
+    default MongoIterable<V> aggregate(MongoCollection<Document> collection, ClientSession session, List<? extends Bson> pipeline) {
+        return collection.aggregate(session, pipeline).map(this::map);
+    }
+
+    default MongoIterable<V> find(MongoCollection<Document> collection, ClientSession session, Bson filter) {
+        return collection.find(session, filter).map(this::map);
+    }
 }
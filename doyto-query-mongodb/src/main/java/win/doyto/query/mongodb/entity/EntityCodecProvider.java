@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+import win.doyto.query.annotation.Entity;
+import win.doyto.query.annotation.EntityType;
+
+/**
+ * EntityCodecProvider
+ * <p>
+ * Provide codecs for the classes annotated by {@code @Entity(type = MONGO_DB)},
+ * preferring the {@link GeneratedMapper} over the reflective {@link EntityCodec}.
+ * The classes renaming their fields by Jackson annotations or {@code @Column}
+ * are mapped by {@link JacksonBsonCodec} to keep the field names of {@link win.doyto.query.util.BeanUtil}.
+ * Should be registered after the default codec registry.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public class EntityCodecProvider implements CodecProvider {
+
+    @Override
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        Entity entity = clazz.getAnnotation(Entity.class);
+        if (entity == null || entity.type() != EntityType.MONGO_DB || !EntityCodec.isEntityClass(clazz)) {
+            return null;
+        }
+        GeneratedMapper<T> generatedMapper = GeneratedMapper.find(clazz, registry);
+        if (generatedMapper != null) {
+            return generatedMapper;
+        }
+        return EntityCodec.isRenamed(clazz) ? new JacksonBsonCodec<>(clazz, true) : new EntityCodec<>(clazz, registry);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.types.ObjectId;
+
+/**
+ * EntityCollectibleCodec
+ * <p>
+ * Generate the <code>_id</code> of an {@link ObjectIdAware} entity on the client before inserting,
+ * so that the entity gets its id back without reading the inserted document.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public abstract class EntityCollectibleCodec<V> implements CollectibleCodec<V> {
+
+    protected final Class<V> clazz;
+
+    protected EntityCollectibleCodec(Class<V> clazz) {
+        this.clazz = clazz;
+    }
+
+    @Override
+    public Class<V> getEncoderClass() {
+        return clazz;
+    }
+
+    @Override
+    public V generateIdIfAbsentFromDocument(V document) {
+        if (document instanceof ObjectIdAware objectIdAware && objectIdAware.getObjectId() == null) {
+            objectIdAware.setObjectId(new ObjectId());
+        }
+        return document;
+    }
+
+    @Override
+    public boolean documentHasId(V document) {
+        return document instanceof ObjectIdAware objectIdAware && objectIdAware.getObjectId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(V document) {
+        if (!documentHasId(document)) {
+            throw new IllegalStateException("The document does not contain an _id");
+        }
+        return new BsonObjectId(((ObjectIdAware) document).getObjectId());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import org.bson.BsonDocument;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecConfigurationException;
+import org.bson.codecs.configuration.CodecRegistry;
+import com.mongodb.client.model.Updates;
+import org.bson.conversions.Bson;
+import win.doyto.query.mongodb.filter.MongoFilterBuilder;
+import win.doyto.query.util.ColumnUtil;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static win.doyto.query.core.QuerySuffix.isValidValue;
+
+/**
+ * GeneratedMapper
+ * <p>
+ * Base class of the mappers generated by {@code MongoEntityProcessor}
+ * for the classes annotated with {@code @Entity(type = MONGO_DB)}.
+ * A generated mapper is named after the entity class with the suffix {@value #SUFFIX},
+ * and encodes, decodes and patches the entity through its accessors without reflection.
+ * The fields of the entity are only resolved reflectively when a field named with a query suffix is checked.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public abstract class GeneratedMapper<E> extends EntityCollectibleCodec<E> {
+    public static final String SUFFIX = "MongoMapper";
+    private static final String SET = "$set";
+    private static final Map<Class<?>, Optional<Constructor<?>>> constructorMap = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, GeneratedMapper<?>> updatesMapperMap = new ConcurrentHashMap<>();
+
+    protected final CodecRegistry registry;
+    private volatile Map<String, Field> fieldMap;
+
+    protected GeneratedMapper(Class<E> entityClass, CodecRegistry registry) {
+        super(entityClass);
+        this.registry = registry;
+    }
+
+    public static String mapperName(Class<?> entityClass) {
+        String name = entityClass.getName();
+        int index = name.lastIndexOf('.') + 1;
+        return name.substring(0, index) + name.substring(index).replace('$', '_') + SUFFIX;
+    }
+
+    public static boolean exists(Class<?> entityClass) {
+        return findConstructor(entityClass).isPresent();
+    }
+
+    /**
+     * Create the generated mapper of the entity class, or return null if none was generated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> GeneratedMapper<E> find(Class<E> entityClass, CodecRegistry registry) {
+        return (GeneratedMapper<E>) findConstructor(entityClass).map(constructor -> {
+            try {
+                return constructor.newInstance(registry);
+            } catch (ReflectiveOperationException e) {
+                throw new CodecConfigurationException("Failed to create " + constructor.getName(), e);
+            }
+        }).orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> GeneratedMapper<E> findForUpdates(Class<E> entityClass) {
+        if (!exists(entityClass)) {
+            return null;
+        }
+        return (GeneratedMapper<E>) updatesMapperMap.computeIfAbsent(
+                entityClass, clazz -> find(clazz, CodecDocMapper.ENTITY_CODEC_REGISTRY));
+    }
+
+    private static Optional<Constructor<?>> findConstructor(Class<?> entityClass) {
+        return constructorMap.computeIfAbsent(entityClass, clazz -> {
+            try {
+                Class<?> mapperClass = Class.forName(mapperName(clazz), true, clazz.getClassLoader());
+                return Optional.of(mapperClass.getConstructor(CodecRegistry.class));
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Build the <code>$set</code> updates with the valid fields of the entity.
+     */
+    public abstract Bson buildUpdates(E entity);
+
+    /**
+     * Apply the same rule as the reflective updates to the value of a field named with a query suffix,
+     * so that both paths set the same fields.
+     */
+    protected boolean isValid(String fieldName, Object value) {
+        Field field = getFieldMap().get(fieldName);
+        return field != null && isValidValue(value, field);
+    }
+
+    private Map<String, Field> getFieldMap() {
+        Map<String, Field> map = fieldMap;
+        if (map == null) {
+            map = new HashMap<>();
+            for (Field field : ColumnUtil.initFields(getEncoderClass())) {
+                map.put(field.getName(), field);
+            }
+            fieldMap = map;
+        }
+        return map;
+    }
+
+    /**
+     * Build the updates in the same shape as the reflective updates:
+     * a single {@link Updates#set} for one field, and an empty document for none.
+     */
+    protected static Bson toUpdates(Document set) {
+        if (set.size() == 1) {
+            Map.Entry<String, Object> entry = set.entrySet().iterator().next();
+            return Updates.set(entry.getKey(), entry.getValue());
+        }
+        return set.isEmpty() ? new Document() : new Document(SET, set);
+    }
+
+    /**
+     * Append the valid fields of a nested bean to the <code>$set</code> document,
+     * using its generated mapper when present.
+     */
+    @SuppressWarnings("unchecked")
+    public static void appendBean(Document set, String path, Object bean) {
+        GeneratedMapper<Object> mapper = (GeneratedMapper<Object>) findForUpdates(bean.getClass());
+        Bson updates = mapper != null ? mapper.buildUpdates(bean) : MongoFilterBuilder.buildUpdates(bean);
+        BsonDocument setDoc = updates.toBsonDocument().getDocument(SET, new BsonDocument());
+        setDoc.forEach((key, value) -> set.append(path + "." + key, value));
+    }
+
+    protected <T> T decodeValue(BsonReader reader, DecoderContext decoderContext, Class<T> clazz) {
+        return registry.get(clazz).decode(reader, decoderContext);
+    }
+
+    protected <T> List<T> decodeList(BsonReader reader, DecoderContext decoderContext, Class<T> elementClass) {
+        return decodeCollection(reader, decoderContext, elementClass, ArrayList::new);
+    }
+
+    protected <T> Set<T> decodeSet(BsonReader reader, DecoderContext decoderContext, Class<T> elementClass) {
+        return decodeCollection(reader, decoderContext, elementClass, LinkedHashSet::new);
+    }
+
+    private <T, C extends Collection<T>> C decodeCollection(
+            BsonReader reader, DecoderContext decoderContext, Class<T> elementClass, Supplier<C> supplier
+    ) {
+        Codec<T> codec = registry.get(elementClass);
+        C collection = supplier.get();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                collection.add(null);
+            } else {
+                collection.add(codec.decode(reader, decoderContext));
+            }
+        }
+        reader.readEndArray();
+        return collection;
+    }
+
+    protected void encodeField(BsonWriter writer, EncoderContext encoderContext, String name, Object value) {
+        if (value != null) {
+            writer.writeName(name);
+            encodeValue(writer, encoderContext, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void encodeValue(BsonWriter writer, EncoderContext encoderContext, Object value) {
+        if (value == null) {
+            writer.writeNull();
+        } else if (value instanceof Collection<?> collection) {
+            writer.writeStartArray();
+            for (Object element : collection) {
+                encodeValue(writer, encoderContext, element);
+            }
+            writer.writeEndArray();
+        } else {
+            Codec<Object> codec = (Codec<Object>) registry.get(value.getClass());
+            encoderContext.encodeWithChildContext(codec, writer, value);
+        }
+    }
+}
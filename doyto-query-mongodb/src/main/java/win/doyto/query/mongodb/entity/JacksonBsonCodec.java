@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecConfigurationException;
+import win.doyto.query.util.BeanUtil;
+
+import java.io.IOException;
+
+/**
+ * JacksonBsonCodec
+ * <p>
+ * Map the entities by Jackson, honoring the Jackson annotations,
+ * while streaming the tokens between Jackson and BSON by {@link BsonTokenBuffer}
+ * instead of the intermediate JSON strings.
+ * The mapper is copied from {@link BeanUtil} to keep its configuration and modules.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public class JacksonBsonCodec<V> extends EntityCollectibleCodec<V> {
+    private static final ObjectMapper OBJECT_MAPPER = BeanUtil.getObjectMapper().copy()
+            .registerModule(new BsonModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
+            .setSerializationInclusion(JsonInclude.Include.ALWAYS);
+    private static final ObjectMapper IGNORE_NULL_MAPPER = OBJECT_MAPPER.copy()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final ObjectReader objectReader;
+    private final ObjectMapper objectMapper;
+
+    public JacksonBsonCodec(Class<V> clazz) {
+        this(clazz, false);
+    }
+
+    /**
+     * @param ignoreNull whether to skip the null fields when encoding
+     */
+    public JacksonBsonCodec(Class<V> clazz, boolean ignoreNull) {
+        super(clazz);
+        this.objectMapper = ignoreNull ? IGNORE_NULL_MAPPER : OBJECT_MAPPER;
+        this.objectReader = objectMapper.readerFor(clazz).withAttribute(BsonTokenBuffer.class, Boolean.TRUE);
+    }
+
+    @Override
+    public V decode(BsonReader reader, DecoderContext decoderContext) {
+        try (JsonParser parser = BsonTokenBuffer.read(reader, objectMapper).asParser(objectMapper)) {
+            return objectReader.readValue(parser);
+        } catch (IOException e) {
+            throw new CodecConfigurationException("Failed to decode " + clazz.getName(), e);
+        }
+    }
+
+    @Override
+    public void encode(BsonWriter writer, V value, EncoderContext encoderContext) {
+        try {
+            BsonTokenBuffer buffer = new BsonTokenBuffer(objectMapper);
+            objectMapper.writeValue(buffer, value);
+            buffer.writeTo(writer);
+        } catch (IOException e) {
+            throw new CodecConfigurationException("Failed to encode " + clazz.getName(), e);
+        }
+    }
+}
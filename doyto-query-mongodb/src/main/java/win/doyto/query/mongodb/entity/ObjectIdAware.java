@@ -24,5 +24,7 @@ import org.bson.types.ObjectId;
  * @author f0rb on 2021-11-27
  */
 public interface ObjectIdAware {
+    ObjectId getObjectId();
+
     void setObjectId(ObjectId objectId);
 }
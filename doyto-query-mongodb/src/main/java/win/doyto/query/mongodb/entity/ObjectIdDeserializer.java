@@ -17,6 +17,7 @@
 package win.doyto.query.mongodb.entity;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
@@ -34,6 +35,9 @@ public class ObjectIdDeserializer extends JsonDeserializer<ObjectId> {
 
     @Override
     public ObjectId deserialize(JsonParser p, DeserializationContext context) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT && p.getEmbeddedObject() instanceof ObjectId objectId) {
+            return objectId;
+        }
         TreeNode treeNode = p.readValueAsTree();
         JsonNode oid = ((JsonNode) treeNode).get("$oid");
         return new ObjectId(oid.asText());
@@ -17,6 +17,7 @@
 package win.doyto.query.mongodb.entity;
 
 import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.StringUtils;
 import org.bson.types.ObjectId;
 import win.doyto.query.util.BeanUtil;
 
@@ -51,6 +52,19 @@ public class ObjectIdMapper {
         });
     }
 
+    /**
+     * Convert an id of type {@link ObjectId}, {@link BigInteger} or a hex {@link String} to {@link ObjectId}.
+     */
+    public static ObjectId toObjectId(Object id) {
+        if (id instanceof ObjectId objectId) {
+            return objectId;
+        }
+        if (id instanceof BigInteger bigInteger) {
+            return new ObjectId(StringUtils.leftPad(bigInteger.toString(16), 24, '0'));
+        }
+        return new ObjectId(id.toString());
+    }
+
     @SuppressWarnings("unchecked")
     public static <I> I convert(Class<?> clazz, ObjectId objectId) {
         return (I) classFuncMap.get(clazz).apply(objectId);
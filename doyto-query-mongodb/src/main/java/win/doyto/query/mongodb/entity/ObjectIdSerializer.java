@@ -31,6 +31,10 @@ import java.io.IOException;
 public class ObjectIdSerializer extends JsonSerializer<ObjectId> {
     @Override
     public void serialize(ObjectId objectId, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
+        if (jsonGenerator instanceof BsonTokenBuffer) {
+            jsonGenerator.writeEmbeddedObject(objectId);
+            return;
+        }
         jsonGenerator.writeStartObject();
         jsonGenerator.writeObjectField("$oid", objectId.toHexString());
         jsonGenerator.writeEndObject();
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.filter;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * FieldAccessor
+ * <p>
+ * Read a field through its getter when present, otherwise the field itself,
+ * by a {@link MethodHandle} resolved once.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public final class FieldAccessor {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Field field;
+    private final MethodHandle handle;
+
+    public FieldAccessor(Field field) {
+        this.field = field;
+        this.handle = resolveHandle(field);
+    }
+
+    private static MethodHandle resolveHandle(Field field) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Method getter = findGetter(field);
+            if (getter != null) {
+                getter.setAccessible(true);
+                return lookup.unreflect(getter).asType(GETTER_TYPE);
+            }
+            field.setAccessible(true);
+            return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("Failed to access field " + field, e);
+        }
+    }
+
+    private static Method findGetter(Field field) {
+        String suffix = StringUtils.capitalize(field.getName());
+        Class<?> type = field.getType();
+        String[] names = type == boolean.class ? new String[]{"is" + suffix, "get" + suffix} : new String[]{"get" + suffix};
+        for (String name : names) {
+            try {
+                Method method = field.getDeclaringClass().getMethod(name);
+                if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // try the next name or fall back to the field
+            }
+        }
+        return null;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Object get(Object target) {
+        try {
+            return handle.invokeExact(target);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to read field " + field, e);
+        }
+    }
+}
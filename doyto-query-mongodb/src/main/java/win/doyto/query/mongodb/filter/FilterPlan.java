@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.filter;
+
+import org.bson.conversions.Bson;
+import win.doyto.query.annotation.DomainPath;
+import win.doyto.query.core.DoytoQuery;
+import win.doyto.query.core.Query;
+import win.doyto.query.core.QuerySuffix;
+import win.doyto.query.util.ColumnUtil;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import static com.mongodb.client.model.Filters.or;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static win.doyto.query.core.QuerySuffix.isValidValue;
+
+/**
+ * FilterPlan
+ * <p>
+ * The fields of a query class resolved once: the accessor, the suffix function,
+ * the column name under each prefix and how to handle the nested and Or queries,
+ * so that building a filter is a loop over the precomputed slots.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+final class FilterPlan {
+    private static final Map<Class<?>, FilterPlan> planMap = new ConcurrentHashMap<>();
+    private static final String OR = "Or";
+
+    private final FieldSlot[] slots;
+
+    private FilterPlan(Class<?> queryClass) {
+        Field[] fields = ColumnUtil.initFields(queryClass);
+        this.slots = new FieldSlot[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            slots[i] = new FieldSlot(fields[i]);
+        }
+    }
+
+    static FilterPlan of(Class<?> queryClass) {
+        return planMap.computeIfAbsent(queryClass, FilterPlan::new);
+    }
+
+    /**
+     * @param prefix empty or ending with a dot
+     */
+    void build(Object query, String prefix, List<Bson> filters) {
+        build(query, prefix, filters, true);
+    }
+
+    /**
+     * @param nested whether to build the nested queries of the domain paths with their prefixes
+     */
+    void build(Object query, String prefix, List<Bson> filters, boolean nested) {
+        for (FieldSlot slot : slots) {
+            Object value = slot.accessor.get(query);
+            if (value instanceof Bson filter) {
+                // process Bson value directly
+                filters.add(filter);
+            } else if (isValidValue(value, slot.accessor.getField())) {
+                Column column = slot.column(prefix);
+                if (slot.or) {
+                    buildOrFilters(value, column, filters);
+                } else if (value instanceof Query) {
+                    of(value.getClass()).build(value, column.nestedPrefix, filters);
+                } else if (value instanceof DoytoQuery) {
+                    if (slot.domainPath && nested) {
+                        of(value.getClass()).build(value, column.nestedPrefix, filters);
+                    }
+                    // ignore related query value and domain query inside a nested query
+                } else {
+                    filters.add(column.apply(value));
+                }
+            }
+        }
+    }
+
+    private static void buildOrFilters(Object value, Column column, List<Bson> filters) {
+        if (value instanceof Collection<?> list) {
+            List<Bson> orFilters = new ArrayList<>(list.size());
+            for (Object v : list) {
+                orFilters.add(v instanceof Query ? MongoFilterBuilder.buildFilter(v) : column.apply(v));
+            }
+            filters.add(or(orFilters));
+        } else {
+            List<Bson> valueFilters = new ArrayList<>();
+            of(value.getClass()).build(value, EMPTY, valueFilters);
+            if (valueFilters.size() == 1) {
+                filters.add(valueFilters.get(0));
+            } else if (!valueFilters.isEmpty()) {
+                filters.add(or(valueFilters));
+            }
+        }
+    }
+
+    private static final class FieldSlot {
+        private final FieldAccessor accessor;
+        private final String fieldName;
+        private final boolean or;
+        private final boolean domainPath;
+        private final Column rootColumn;
+        private final Map<String, Column> columnMap = new ConcurrentHashMap<>();
+
+        FieldSlot(Field field) {
+            this.accessor = new FieldAccessor(field);
+            this.fieldName = field.getName();
+            this.or = fieldName.endsWith(OR);
+            this.domainPath = field.isAnnotationPresent(DomainPath.class);
+            this.rootColumn = newColumn(EMPTY);
+        }
+
+        Column column(String prefix) {
+            return prefix.isEmpty() ? rootColumn : columnMap.computeIfAbsent(prefix, this::newColumn);
+        }
+
+        private Column newColumn(String prefix) {
+            String path = prefix + fieldName;
+            String name = or ? path.substring(0, path.length() - OR.length()) : path;
+            QuerySuffix querySuffix = QuerySuffix.resolve(name);
+            return new Column(path + ".", querySuffix.resolveColumnName(name), MongoFilterBuilder.suffixFunc(querySuffix));
+        }
+    }
+
+    private record Column(String nestedPrefix, String name, BiFunction<String, Object, Bson> func) {
+        Bson apply(Object value) {
+            return func.apply(name, value);
+        }
+    }
+}
@@ -17,7 +17,6 @@
 package win.doyto.query.mongodb.filter;
 
 import com.mongodb.client.model.Filters;
-import com.mongodb.client.model.Updates;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
@@ -25,15 +24,9 @@ import org.bson.BsonDocument;
 import org.bson.BsonNull;
 import org.bson.BsonString;
 import org.bson.conversions.Bson;
-import win.doyto.query.annotation.DomainPath;
-import win.doyto.query.core.DoytoQuery;
-import win.doyto.query.core.Query;
 import win.doyto.query.core.QuerySuffix;
-import win.doyto.query.entity.Persistable;
-import win.doyto.query.util.ColumnUtil;
-import win.doyto.query.util.CommonUtil;
+import win.doyto.query.mongodb.entity.GeneratedMapper;
 
-import java.lang.reflect.Field;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.regex.Matcher;
@@ -99,90 +92,40 @@ public class MongoFilterBuilder {
 
     public static Bson buildFilter(Object query, String prefix) {
         List<Bson> filters = new ArrayList<>();
-        buildFilter(query, prefix, filters);
-        return switch (filters.size()) {
-            case 0 -> EMPTY_DOCUMENT;
-            case 1 -> filters.get(0);
-            default -> and(filters);
-        };
-    }
-
-    private static void buildFilter(Object query, String prefix, List<Bson> filters) {
         prefix = StringUtils.isEmpty(prefix) ? EMPTY : prefix + ".";
-        Field[] fields = ColumnUtil.initFields(query.getClass());
-        for (Field field : fields) {
-            Object value = CommonUtil.readFieldGetter(field, query);
-            if (value instanceof Bson filter) {
-                // process Bson value directly
-                filters.add(filter);
-            } else if (isValidValue(value, field)) {
-                String newPrefix = prefix + field.getName();
-                if (field.getName().endsWith("Or")) {
-                    buildOrFilters(filters, value, newPrefix);
-                } else if (value instanceof Query) {
-                    buildFilter(value, newPrefix, filters);
-                } else if (value instanceof DoytoQuery) {
-                    if (field.isAnnotationPresent(DomainPath.class)) {
-                        buildFilter(value, newPrefix, filters);
-                    }
-                    // ignore related query value and domain query inside a nested query
-                } else {
-                    filters.add(resolveFilter(newPrefix, value));
-                }
-            }
-        }
-    }
-
-    private static void buildOrFilters(List<Bson> filters, Object value, String newPrefix) {
-        if (value instanceof Collection<?> list) {
-            List<Bson> orFilters = new ArrayList<>();
-            String fieldName = newPrefix.substring(0, newPrefix.length() - 2);
-            for (Object v : list) {
-                Bson bson = v instanceof Query ? buildFilter(v) : resolveFilter(fieldName, v);
-                orFilters.add(bson);
-            }
-            filters.add(or(orFilters));
-        } else {
-            buildOrFilter(value, filters);
-        }
+        FilterPlan.of(query.getClass()).build(query, prefix, filters);
+        return combine(filters);
     }
 
-    private static void buildOrFilter(Object value, List<Bson> rootFilters) {
+    /**
+     * Build the filter without the nested queries of the domain paths,
+     * which are tested by the lookups of the aggregation instead.
+     */
+    public static Bson buildRootFilter(Object query) {
         List<Bson> filters = new ArrayList<>();
-        buildFilter(value, EMPTY, filters);
-        if (filters.size() == 1) {
-            rootFilters.add(filters.get(0));
-        } else if (!filters.isEmpty()) {
-            rootFilters.add(or(filters));
-        }
+        FilterPlan.of(query.getClass()).build(query, EMPTY, filters, false);
+        return combine(filters);
     }
 
-    private static Bson resolveFilter(String fieldName, Object value) {
-        QuerySuffix querySuffix = resolve(fieldName);
-        String columnName = querySuffix.resolveColumnName(fieldName);
-        return suffixFuncMap.getOrDefault(querySuffix, Filters::eq).apply(columnName, value);
+    public static Bson combine(List<Bson> filters) {
+        return switch (filters.size()) {
+            case 0 -> EMPTY_DOCUMENT;
+            case 1 -> filters.get(0);
+            default -> and(filters);
+        };
     }
 
-    public static Bson buildUpdates(Object target) {
-        List<Bson> updates = new ArrayList<>();
-        buildUpdates(target, EMPTY, updates);
-        return Updates.combine(updates);
+    static BiFunction<String, Object, Bson> suffixFunc(QuerySuffix querySuffix) {
+        return suffixFuncMap.getOrDefault(querySuffix, Filters::eq);
     }
 
-    private static void buildUpdates(Object entity, String prefix, List<Bson> updates) {
-        prefix = StringUtils.isEmpty(prefix) ? EMPTY : prefix + ".";
-        Field[] fields = ColumnUtil.initFields(entity.getClass());
-        for (Field field : fields) {
-            Object value = CommonUtil.readFieldGetter(field, entity);
-            if (isValidValue(value, field)) {
-                String newPrefix = prefix + field.getName();
-                if (value instanceof Persistable) {
-                    buildUpdates(value, newPrefix, updates);
-                } else {
-                    updates.add(Updates.set(newPrefix, value));
-                }
-            }
+    @SuppressWarnings("unchecked")
+    public static Bson buildUpdates(Object target) {
+        GeneratedMapper<Object> generatedMapper = (GeneratedMapper<Object>) GeneratedMapper.findForUpdates(target.getClass());
+        if (generatedMapper != null) {
+            return generatedMapper.buildUpdates(target);
         }
+        return UpdatePlan.of(target.getClass()).buildUpdates(target);
     }
 
     public static Bson buildSort(String sort) {
@@ -190,7 +133,11 @@ public class MongoFilterBuilder {
     }
 
     public static Bson buildSort(String sort, Set<String> groupColumns) {
-        List<Bson> sortList = new ArrayList<>();
+        return orderBy(parseSort(sort, groupColumns).stream().map(SortKey::toSort).toList());
+    }
+
+    public static List<SortKey> parseSort(String sort, Set<String> groupColumns) {
+        List<SortKey> sortKeys = new ArrayList<>();
         Matcher matcher = SORT_PTN.matcher(sort.toLowerCase());
         while (matcher.find()) {
             String filedName = matcher.group(1);
@@ -199,8 +146,8 @@ public class MongoFilterBuilder {
             }
             String direction = matcher.group(2);
             boolean isDesc = StringUtils.equals(direction, ",desc");
-            sortList.add(isDesc ? descending(filedName) : ascending(filedName));
+            sortKeys.add(new SortKey(filedName, isDesc));
         }
-        return orderBy(sortList);
+        return sortKeys;
     }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.filter;
+
+import org.bson.conversions.Bson;
+
+import static com.mongodb.client.model.Sorts.ascending;
+import static com.mongodb.client.model.Sorts.descending;
+
+/**
+ * SortKey
+ * <p>
+ * A column parsed from the sort syntax with its direction.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public record SortKey(String column, boolean desc) {
+
+    public Bson toSort() {
+        return desc ? descending(column) : ascending(column);
+    }
+}
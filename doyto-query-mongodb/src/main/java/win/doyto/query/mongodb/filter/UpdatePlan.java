@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.filter;
+
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import win.doyto.query.entity.Persistable;
+import win.doyto.query.util.ColumnUtil;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static win.doyto.query.core.QuerySuffix.isValidValue;
+
+/**
+ * UpdatePlan
+ * <p>
+ * The fields of an entity class resolved once with the accessors and the dotted paths,
+ * emitting a single <code>$set</code> document for the valid fields,
+ * or a single {@link Updates#set} when only one field is present.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+final class UpdatePlan {
+    private static final Map<Class<?>, UpdatePlan> planMap = new ConcurrentHashMap<>();
+    private static final String SET = "$set";
+
+    private final FieldSlot[] slots;
+
+    private UpdatePlan(Class<?> entityClass) {
+        Field[] fields = ColumnUtil.initFields(entityClass);
+        this.slots = new FieldSlot[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            slots[i] = new FieldSlot(fields[i]);
+        }
+    }
+
+    static UpdatePlan of(Class<?> entityClass) {
+        return planMap.computeIfAbsent(entityClass, UpdatePlan::new);
+    }
+
+    Bson buildUpdates(Object entity) {
+        SetCollector collector = new SetCollector();
+        collect(entity, EMPTY, collector);
+        return collector.toUpdates();
+    }
+
+    /**
+     * @param prefix empty or ending with a dot
+     */
+    private void collect(Object entity, String prefix, SetCollector collector) {
+        for (FieldSlot slot : slots) {
+            Object value = slot.accessor.get(entity);
+            if (isValidValue(value, slot.accessor.getField())) {
+                if (value instanceof Persistable) {
+                    of(value.getClass()).collect(value, slot.nestedPrefix(prefix), collector);
+                } else {
+                    collector.add(slot.path(prefix), value);
+                }
+            }
+        }
+    }
+
+    private static final class SetCollector {
+        private String firstPath;
+        private Object firstValue;
+        private Document set;
+
+        void add(String path, Object value) {
+            if (firstPath == null) {
+                firstPath = path;
+                firstValue = value;
+            } else {
+                if (set == null) {
+                    set = new Document(firstPath, firstValue);
+                }
+                set.append(path, value);
+            }
+        }
+
+        Bson toUpdates() {
+            if (set != null) {
+                return new Document(SET, set);
+            }
+            return firstPath != null ? Updates.set(firstPath, firstValue) : new Document();
+        }
+    }
+
+    private static final class FieldSlot {
+        private final FieldAccessor accessor;
+        private final String fieldName;
+        private final String nestedName;
+        private final Map<String, String> pathMap = new ConcurrentHashMap<>();
+        private final Map<String, String> nestedPrefixMap = new ConcurrentHashMap<>();
+
+        FieldSlot(Field field) {
+            this.accessor = new FieldAccessor(field);
+            this.fieldName = field.getName();
+            this.nestedName = fieldName + ".";
+        }
+
+        String path(String prefix) {
+            return prefix.isEmpty() ? fieldName : pathMap.computeIfAbsent(prefix, p -> p + fieldName);
+        }
+
+        String nestedPrefix(String prefix) {
+            return prefix.isEmpty() ? nestedName : nestedPrefixMap.computeIfAbsent(prefix, p -> p + nestedName);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * KeysetList
+ * <p>
+ * One page of results with the token to seek the next page,
+ * which is null when no more results follow.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetList<V> {
+    private final List<V> list;
+    private final String next;
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.paging;
+
+import lombok.Getter;
+import win.doyto.query.core.PageList;
+
+import java.util.List;
+
+/**
+ * KeysetPageList
+ * <p>
+ * A {@link PageList} carrying the token to seek the next page.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@Getter
+public class KeysetPageList<V> extends PageList<V> {
+    private final String next;
+
+    public KeysetPageList(KeysetList<V> keysetList, long total) {
+        super(keysetList.getList(), total);
+        this.next = keysetList.getNext();
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
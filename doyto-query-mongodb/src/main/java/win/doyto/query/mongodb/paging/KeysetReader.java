@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.paging;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import win.doyto.query.core.DoytoQuery;
+import win.doyto.query.mongodb.aggregation.AggregationMetadata;
+import win.doyto.query.mongodb.entity.DocMapper;
+import win.doyto.query.mongodb.filter.SortKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static win.doyto.query.mongodb.paging.KeysetToken.KEYSET_KEY;
+
+/**
+ * KeysetReader
+ * <p>
+ * Run the keyset pipeline and build the token for the next page
+ * from the sort values of the last result, only when one more result follows the page.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeysetReader {
+
+    public static <V> KeysetList<V> read(
+            AggregationMetadata<MongoCollection<Document>> md, ClientSession session,
+            DoytoQuery query, String token, DocMapper<V> docMapper
+    ) {
+        List<SortKey> sortKeys = md.buildSortKeys(query);
+        List<Bson> pipeline = md.buildKeysetAggregation(query, sortKeys, token);
+        int limit = query.getPageSize();
+        List<V> list = new ArrayList<>(limit);
+        RawBsonDocument last = null;
+        boolean hasNext;
+        try (MongoCursor<RawBsonDocument> cursor = md.getCollection()
+                                                     .withDocumentClass(RawBsonDocument.class)
+                                                     .aggregate(session, pipeline).iterator()) {
+            while (cursor.hasNext() && list.size() < limit) {
+                last = cursor.next();
+                list.add(docMapper.map(last));
+            }
+            hasNext = last != null && cursor.hasNext();
+        }
+        String next = hasNext ? KeysetToken.encode(sortKeys, last.getArray(KEYSET_KEY)) : null;
+        return new KeysetList<>(list, next);
+    }
+}
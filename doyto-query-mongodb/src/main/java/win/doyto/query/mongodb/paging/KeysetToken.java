@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.paging;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bson.*;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.conversions.Bson;
+import win.doyto.query.mongodb.filter.SortKey;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.mongodb.client.model.Filters.*;
+
+/**
+ * KeysetToken
+ * <p>
+ * Encode the sort values of the last result into an opaque token,
+ * and decode the token into a range filter on the sort columns
+ * to seek the next page instead of skipping the previous ones.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeysetToken {
+    public static final String KEYSET_KEY = "_keyset";
+    private static final String SORT = "s";
+    private static final String VALUES = "v";
+
+    public static String signature(List<SortKey> sortKeys) {
+        return sortKeys.stream()
+                       .map(sortKey -> sortKey.desc() ? sortKey.column() + ",desc" : sortKey.column())
+                       .collect(Collectors.joining(";"));
+    }
+
+    public static String encode(List<SortKey> sortKeys, BsonArray values) {
+        BsonDocument token = new BsonDocument(SORT, new BsonString(signature(sortKeys))).append(VALUES, values);
+        ByteBuf byteBuf = new RawBsonDocument(token, new BsonDocumentCodec()).getByteBuffer();
+        byte[] bytes = new byte[byteBuf.remaining()];
+        byteBuf.get(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static BsonArray decode(List<SortKey> sortKeys, String token) {
+        BsonDocument document;
+        try {
+            document = new RawBsonDocument(Base64.getUrlDecoder().decode(token)).decode(new BsonDocumentCodec());
+        } catch (IllegalArgumentException | BSONException e) {
+            throw new IllegalArgumentException("Invalid keyset token: " + token, e);
+        }
+        BsonValue sort = document.get(SORT);
+        BsonValue values = document.get(VALUES);
+        if (sort == null || !sort.isString() || values == null || !values.isArray()
+                || !sort.asString().getValue().equals(signature(sortKeys))
+                || values.asArray().size() != sortKeys.size()) {
+            throw new IllegalArgumentException("Keyset token does not match the sort: " + signature(sortKeys));
+        }
+        return values.asArray();
+    }
+
+    /**
+     * Build the filter to seek the results after the values:
+     * {@code k1 > v1 || (k1 == v1 && k2 > v2) || ...},
+     * where {@code >} turns to {@code <} for the descending columns.
+     * <p>
+     * Null and missing values sort before any other value,
+     * so a column after null is any non-null value when ascending and none when descending,
+     * and a column after a non-null value also includes null when descending.
+     */
+    public static Bson buildRange(List<SortKey> sortKeys, BsonArray values) {
+        List<Bson> branches = new ArrayList<>(sortKeys.size());
+        for (int i = 0; i < sortKeys.size(); i++) {
+            Bson after = after(sortKeys.get(i), values.get(i));
+            if (after == null) {
+                continue;
+            }
+            List<Bson> conditions = new ArrayList<>(i + 1);
+            for (int j = 0; j < i; j++) {
+                conditions.add(eq(sortKeys.get(j).column(), values.get(j)));
+            }
+            conditions.add(after);
+            branches.add(conditions.size() == 1 ? conditions.get(0) : and(conditions));
+        }
+        return branches.size() == 1 ? branches.get(0) : or(branches);
+    }
+
+    private static Bson after(SortKey sortKey, BsonValue value) {
+        String column = sortKey.column();
+        if (value.isNull()) {
+            return sortKey.desc() ? null : ne(column, null);
+        }
+        return sortKey.desc() ? or(lt(column, value), eq(column, null)) : gt(column, value);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.paging;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * SliceList
+ * <p>
+ * One page of results telling whether a next page exists, without the total.
+ *
+ * @author agent on 2026/10/18
+ * @since 2.0.1
+ */
+public class SliceList<V> {
+    @Getter
+    private final List<V> list;
+    private final boolean hasNext;
+
+    /**
+     * @param list the results fetched with one more than the page size
+     */
+    public SliceList(List<V> list, int pageSize) {
+        this.hasNext = list.size() > pageSize;
+        this.list = hasNext ? list.subList(0, pageSize) : list;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
@@ -37,4 +37,10 @@ public interface MongoSessionSupplier extends Supplier<ClientSession> {
     ClientSession get(boolean hold);
 
     void release();
+
+    /**
+     * Tell whether the session held for the current thread is in a transaction,
+     * without starting a session when none is held.
+     */
+    boolean hasActiveTransaction();
 }
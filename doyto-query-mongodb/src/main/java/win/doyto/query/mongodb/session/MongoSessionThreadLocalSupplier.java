@@ -66,4 +66,10 @@ public class MongoSessionThreadLocalSupplier implements MongoSessionSupplier {
     public void release() {
         this.clientSessionThreadLocal.remove();
     }
+
+    @Override
+    public boolean hasActiveTransaction() {
+        ClientSession clientSession = this.clientSessionThreadLocal.get();
+        return clientSession != null && clientSession.hasActiveTransaction();
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * IdBatchLoaderTest
+ *
+ * @author agent on 2026/10/18
+ */
+class IdBatchLoaderTest {
+    private final List<Collection<Integer>> loadedBatches = new CopyOnWriteArrayList<>();
+    private final Function<Collection<Integer>, Map<Integer, String>> batchFunction = ids -> {
+        loadedBatches.add(new ArrayList<>(ids));
+        return ids.stream().filter(id -> id > 0).collect(Collectors.toMap(id -> id, id -> "e" + id));
+    };
+
+    private List<String> loadConcurrently(IdBatchLoader<Integer, String> loader, Integer... ids) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(ids.length);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> futures = new ArrayList<>();
+            for (Integer id : ids) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return loader.load(id);
+                }));
+            }
+            start.countDown();
+            List<String> results = new ArrayList<>();
+            for (Future<String> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void coalesceConcurrentLoadsWithinWindow() throws Exception {
+        IdBatchLoader<Integer, String> loader = new IdBatchLoader<>(batchFunction, 100, Duration.ofMillis(500));
+
+        List<String> results = loadConcurrently(loader, 1, 2, 2, 3, -1, 1);
+
+        assertThat(results).containsExactly("e1", "e2", "e2", "e3", null, "e1");
+        assertThat(loadedBatches).hasSize(1);
+        assertThat(loadedBatches.get(0)).containsExactlyInAnyOrder(1, 2, 3, -1);
+        assertThat(loader.getMetrics())
+                .isEqualTo(new IdBatchLoader.Metrics(1, 6, 4, 4))
+                .extracting(IdBatchLoader.Metrics::averageBatchSize).isEqualTo(4.0);
+    }
+
+    @Test
+    @Timeout(5)
+    void dispatchFullBatchBeforeWindow() throws Exception {
+        IdBatchLoader<Integer, String> loader = new IdBatchLoader<>(batchFunction, 2, Duration.ofMinutes(1));
+
+        List<String> results = loadConcurrently(loader, 1, 2);
+
+        assertThat(results).containsExactly("e1", "e2");
+        assertThat(loader.getMetrics().largestBatch()).isEqualTo(2);
+    }
+
+    @Test
+    void failAllCallersOfFailedBatch() {
+        IdBatchLoader<Integer, String> loader = new IdBatchLoader<>(ids -> {
+            throw new IllegalStateException("down");
+        }, 10, Duration.ZERO);
+
+        assertThatThrownBy(() -> loader.load(1)).isInstanceOf(IllegalStateException.class).hasMessage("down");
+    }
+
+    @Test
+    @Timeout(5)
+    void failAllCallersOnError() throws Exception {
+        IdBatchLoader<Integer, String> loader = new IdBatchLoader<>(ids -> {
+            throw new AssertionError("broken");
+        }, 10, Duration.ofMillis(200));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Throwable>> futures = new ArrayList<>();
+            for (int id = 1; id <= 3; id++) {
+                int key = id;
+                futures.add(executor.submit(() -> {
+                    try {
+                        loader.load(key);
+                        return null;
+                    } catch (Throwable e) {
+                        return e;
+                    }
+                }));
+            }
+            for (Future<Throwable> future : futures) {
+                assertThat(future.get()).isInstanceOf(AssertionError.class).hasMessage("broken");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.client.MongoClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import win.doyto.query.core.PageQuery;
+import win.doyto.query.mongodb.test.inventory.InventoryStock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.parallel.ResourceAccessMode.READ_WRITE;
+
+/**
+ * MongoConcurrentChangeTest
+ * <p>
+ * The chunks are only changed or inserted concurrently outside a transaction,
+ * so this test runs without the {@link win.doyto.query.mongodb.test.TransactionInvocationInterceptor}.
+ *
+ * @author agent on 2026/10/18
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@ResourceLock(value = "inventory_stock", mode = READ_WRITE)
+class MongoConcurrentChangeTest {
+
+    private final MongoDataAccess<InventoryStock, String, PageQuery> stockDataAccess;
+
+    MongoConcurrentChangeTest(@Autowired MongoClient mongoClient) {
+        this.stockDataAccess = new MongoDataAccess<>(mongoClient, InventoryStock.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockDataAccess.getCollection().drop();
+    }
+
+    private List<InventoryStock> ingestStocks(int size) {
+        List<InventoryStock> stocks = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            InventoryStock stock = new InventoryStock();
+            stock.setItem("item" + i);
+            stock.setQty(i);
+            stocks.add(stock);
+        }
+        InsertResult<InventoryStock> result = stockDataAccess.ingest(stocks, 2, 3);
+        assertThat(result.getInsertedCount()).isEqualTo(size);
+        assertThat(result.hasFailures()).isFalse();
+        return stocks;
+    }
+
+    @Test
+    void ingestChunksConcurrently() {
+        List<InventoryStock> stocks = ingestStocks(10);
+
+        assertThat(stocks).extracting("objectId").doesNotContainNull();
+        assertThat(stockDataAccess.queryIds(new PageQuery()))
+                .containsExactlyInAnyOrderElementsOf(stocks.stream().map(InventoryStock::getId).toList());
+    }
+
+    @Test
+    void deletePageInChunksConcurrently() {
+        ingestStocks(10);
+        stockDataAccess.setChangeChunkSize(2);
+        stockDataAccess.setChangeParallelism(3);
+        PageQuery query = PageQuery.builder().pageNumber(0).pageSize(5).sort("qty,desc").build();
+
+        int count = stockDataAccess.delete(query);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(stockDataAccess.queryColumns(PageQuery.builder().sort("qty").build(), Integer.class, "qty"))
+                .containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void rejectNonPositiveBatchSize() {
+        PageQuery query = new PageQuery();
+
+        assertThatThrownBy(() -> stockDataAccess.deleteInBatches(query, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectNonPositiveChangeChunkSizeAndParallelism() {
+        assertThatThrownBy(() -> stockDataAccess.setChangeChunkSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> stockDataAccess.setChangeChunkSize(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> stockDataAccess.setChangeParallelism(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectNonPositiveChunkSizeAndWorkersForIngest() {
+        List<InventoryStock> stocks = List.of(new InventoryStock());
+
+        assertThatThrownBy(() -> stockDataAccess.ingest(stocks, 0, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> stockDataAccess.ingest(stocks, -1, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> stockDataAccess.ingest(stocks, 2, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(stockDataAccess.getCollection().countDocuments()).isZero();
+    }
+}
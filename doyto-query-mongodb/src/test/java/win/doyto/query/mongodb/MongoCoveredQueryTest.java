@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import win.doyto.query.mongodb.test.inventory.InventoryEntity;
+import win.doyto.query.mongodb.test.inventory.InventoryQuery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.parallel.ResourceAccessMode.READ_WRITE;
+
+/**
+ * MongoCoveredQueryTest
+ * <p>
+ * Explain is not allowed in a transaction, so this test runs without
+ * the {@link win.doyto.query.mongodb.test.TransactionInvocationInterceptor}.
+ *
+ * @author agent on 2026/10/18
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@ResourceLock(value = "inventory", mode = READ_WRITE)
+class MongoCoveredQueryTest {
+    private static final Bson STATUS_ITEM_INDEX = Indexes.ascending("status", "item");
+
+    private final MongoDataAccess<InventoryEntity, String, InventoryQuery> inventoryDataAccess;
+    private final MongoCollection<Document> collection;
+
+    MongoCoveredQueryTest(@Autowired MongoClient mongoClient) {
+        this.inventoryDataAccess = new MongoDataAccess<>(mongoClient, InventoryEntity.class);
+        this.collection = inventoryDataAccess.getCollection();
+        this.collection.createIndex(STATUS_ITEM_INDEX);
+    }
+
+    @AfterEach
+    void tearDown() {
+        collection.dropIndex(STATUS_ITEM_INDEX);
+    }
+
+    @Test
+    void answerSingleColumnFromIndex() {
+        InventoryQuery query = InventoryQuery.builder().status("A").build();
+
+        Document explain = inventoryDataAccess.explainColumnsCovered(query, STATUS_ITEM_INDEX, "item");
+
+        String winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+        assertThat(winningPlan).contains("PROJECTION_COVERED").doesNotContain("FETCH");
+    }
+
+    @Test
+    void fetchWhenIdRequested() {
+        InventoryQuery query = InventoryQuery.builder().status("A").build();
+
+        Document explain = inventoryDataAccess.explainColumnsCovered(query, STATUS_ITEM_INDEX, "_id", "item");
+
+        assertThat(explain.toJson()).contains("FETCH").doesNotContain("PROJECTION_COVERED");
+    }
+}
@@ -22,7 +22,12 @@ import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.ResourceLock;
 import org.springframework.beans.factory.annotation.Autowired;
+import win.doyto.query.core.PageList;
 import win.doyto.query.core.PageQuery;
+import win.doyto.query.mongodb.paging.CappedPageList;
+import win.doyto.query.mongodb.paging.KeysetList;
+import win.doyto.query.mongodb.paging.KeysetPageList;
+import win.doyto.query.mongodb.paging.SliceList;
 import win.doyto.query.mongodb.test.inventory.InventoryEntity;
 import win.doyto.query.mongodb.test.inventory.InventoryQuery;
 import win.doyto.query.mongodb.test.inventory.InventorySize;
@@ -32,7 +37,12 @@ import win.doyto.query.mongodb.test.user.UserQuery;
 import win.doyto.query.test.role.RoleQuery;
 
 import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.parallel.ResourceAccessMode.READ_WRITE;
@@ -427,4 +437,358 @@ class MongoDataAccessTest extends MongoApplicationTest {
         long count = userDataAccess.count(userQuery);
         assertThat(count).isEqualTo(2);
     }
+
+    @Test
+    void seekPagesByKeyset() {
+        InventoryQuery query = InventoryQuery.builder().sort("status,desc").pageSize(2).build();
+
+        KeysetPageList<InventoryEntity> first = inventoryDataAccess.pageByKeyset(query, null);
+        KeysetList<InventoryEntity> second = inventoryDataAccess.queryByKeyset(query, first.getNext());
+        KeysetList<InventoryEntity> third = inventoryDataAccess.queryByKeyset(query, second.getNext());
+
+        assertThat(first.getTotal()).isEqualTo(5);
+        assertThat(first.getList()).extracting("item").containsExactly("paper", "planner");
+        assertThat(second.getList()).extracting("item").containsExactly("journal", "notebook");
+        assertThat(third.getList()).extracting("item").containsExactly("postcard");
+        assertThat(third.hasNext()).isFalse();
+    }
+
+    @Test
+    void returnNoNextTokenWhenLastPageIsFull() {
+        InventoryQuery query = InventoryQuery.builder().sort("qty").pageSize(5).build();
+
+        KeysetList<InventoryEntity> page = inventoryDataAccess.queryByKeyset(query, null);
+
+        assertThat(page.getList()).hasSize(5);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void seekPagesByKeysetAcrossMissingSortValues() {
+        InventoryEntity noStatus = new InventoryEntity();
+        noStatus.setItem("sketchbook");
+        noStatus.setQty(60);
+        inventoryDataAccess.create(noStatus);
+
+        List<String> ascending = new ArrayList<>();
+        List<String> descending = new ArrayList<>();
+        collectByKeyset(InventoryQuery.builder().sort("status").pageSize(2).build(), ascending);
+        collectByKeyset(InventoryQuery.builder().sort("status,desc").pageSize(2).build(), descending);
+
+        assertThat(ascending).hasSize(6).startsWith("sketchbook");
+        assertThat(descending).hasSize(6).endsWith("sketchbook");
+    }
+
+    private void collectByKeyset(InventoryQuery query, List<String> items) {
+        String token = null;
+        do {
+            KeysetList<InventoryEntity> page = inventoryDataAccess.queryByKeyset(query, token);
+            page.getList().forEach(e -> items.add(e.getItem()));
+            token = page.getNext();
+        } while (token != null);
+    }
+
+    @Test
+    void streamResultsInBatches() {
+        inventoryDataAccess.setBatchSize(2);
+        InventoryQuery query = InventoryQuery.builder().sort("qty,desc").build();
+
+        try (Stream<InventoryEntity> stream = inventoryDataAccess.stream(query)) {
+            assertThat(stream.map(InventoryEntity::getQty)).containsExactly(100, 75, 50, 45, 25);
+        }
+    }
+
+    @Test
+    void forEachResult() {
+        List<String> items = new ArrayList<>();
+
+        inventoryDataAccess.forEach(InventoryQuery.builder().status("A").build(), e -> items.add(e.getItem()));
+
+        assertThat(items).containsExactly("journal", "notebook", "postcard");
+    }
+
+    @Test
+    void closeIteratorBeforeExhausted() {
+        ResultCursor<InventoryEntity> cursor = inventoryDataAccess.iterate(InventoryQuery.builder().build());
+
+        assertThat(cursor.next()).extracting("item").isEqualTo("journal");
+        cursor.close();
+        assertThat(cursor.hasNext()).isFalse();
+    }
+
+    @Test
+    void streamColumnsAndIds() {
+        InventoryQuery query = InventoryQuery.builder().status("D").build();
+
+        try (Stream<String> items = inventoryDataAccess.streamColumns(query, String.class, "item");
+             Stream<String> ids = inventoryDataAccess.streamIds(query)) {
+            assertThat(items).containsExactly("paper", "planner");
+            assertThat(ids).containsExactlyElementsOf(inventoryDataAccess.queryIds(query));
+        }
+    }
+
+    @Test
+    void pageWithCappedCount() {
+        InventoryQuery query = InventoryQuery.builder().pageSize(2).build();
+
+        CappedPageList<InventoryEntity> capped = inventoryDataAccess.pageCapped(query, 3);
+        CappedPageList<InventoryEntity> exact = inventoryDataAccess.pageCapped(query, 10);
+
+        assertThat(capped.getList()).hasSize(2);
+        assertThat(capped.getTotal()).isEqualTo(3);
+        assertThat(capped.isCapped()).isTrue();
+        assertThat(exact.getTotal()).isEqualTo(5);
+        assertThat(exact.isCapped()).isFalse();
+    }
+
+    @Test
+    void pageWithCappedCountByAggregation() {
+        userDataAccess.setCountLimit(1);
+        RoleQuery roleQuery = RoleQuery.builder().valid(true).build();
+        UserQuery userQuery = UserQuery.builder().role(roleQuery).build();
+
+        assertThat(userDataAccess.page(userQuery))
+                .isInstanceOf(CappedPageList.class)
+                .hasFieldOrPropertyWithValue("total", 1L)
+                .hasFieldOrPropertyWithValue("capped", true);
+    }
+
+    @Test
+    void sliceWithoutCounting() {
+        SliceList<InventoryEntity> first = inventoryDataAccess.slice(InventoryQuery.builder().pageNumber(1).pageSize(2).build());
+        SliceList<InventoryEntity> last = inventoryDataAccess.slice(InventoryQuery.builder().pageNumber(2).pageSize(2).build());
+
+        assertThat(first.getList()).extracting("item").containsExactly("paper", "planner");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getList()).extracting("item").containsExactly("postcard");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void queryColumnsCoveredWithoutId() {
+        InventoryQuery query = InventoryQuery.builder().status("D").build();
+
+        List<InventoryEntity> entities = inventoryDataAccess.queryColumnsCovered(query, InventoryEntity.class, null, "item", "qty");
+        List<Integer> qtyList = inventoryDataAccess.queryColumnsCovered(query, Integer.class, null, "qty");
+
+        assertThat(entities).extracting("item", "id")
+                            .containsExactly(Tuple.tuple("paper", null), Tuple.tuple("planner", null));
+        assertThat(qtyList).containsExactly(100, 75);
+    }
+
+    @Test
+    void deletePageInChunks() {
+        inventoryDataAccess.setChangeChunkSize(1);
+        InventoryQuery query = InventoryQuery.builder().pageNumber(0).pageSize(3).build();
+
+        int count = inventoryDataAccess.delete(query);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(inventoryDataAccess.count(InventoryQuery.builder().build())).isEqualTo(2);
+    }
+
+    @Test
+    void patchInIdRangeBatches() {
+        InventoryEntity patch = new InventoryEntity();
+        patch.setStatus("F");
+
+        long count = inventoryDataAccess.patchInBatches(patch, InventoryQuery.builder().status("A").build(), 2);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(inventoryDataAccess.count(InventoryQuery.builder().status("F").build())).isEqualTo(3);
+    }
+
+    @Test
+    void deleteInIdRangeBatches() {
+        long count = inventoryDataAccess.deleteInBatches(InventoryQuery.builder().build(), 2);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(inventoryDataAccess.count(InventoryQuery.builder().build())).isZero();
+    }
+
+    @Test
+    void batchPatchInOneBulkWrite() {
+        List<InventoryEntity> entities = inventoryDataAccess.query(InventoryQuery.builder().status("A").build());
+        List<InventoryEntity> patches = entities.stream().map(e -> {
+            InventoryEntity patch = new InventoryEntity();
+            patch.setId(e.getId());
+            patch.setQty(e.getQty() + 1);
+            return patch;
+        }).toList();
+
+        BulkResult<InventoryEntity> result = inventoryDataAccess.batchPatch(patches);
+
+        assertThat(result.getModifiedCount()).isEqualTo(3);
+        assertThat(result.hasFailures()).isFalse();
+        assertThat(inventoryDataAccess.queryColumns(InventoryQuery.builder().status("A").build(), Integer.class, "qty"))
+                .containsExactly(26, 51, 46);
+    }
+
+    @Test
+    void failEmptyPatchAloneInBatchPatch() {
+        List<InventoryEntity> entities = inventoryDataAccess.query(InventoryQuery.builder().status("A").build());
+        InventoryEntity patch = new InventoryEntity();
+        patch.setId(entities.get(0).getId());
+        patch.setQty(100);
+        InventoryEntity empty = new InventoryEntity();
+        empty.setId(entities.get(1).getId());
+
+        BulkResult<InventoryEntity> result = inventoryDataAccess.batchPatch(List.of(patch, empty));
+
+        assertThat(result.getOutcomes()).extracting(BulkResult.Outcome::status)
+                                        .containsExactly(BulkResult.Status.APPLIED, BulkResult.Status.FAILED);
+        assertThat(result.getFailures()).extracting(BulkResult.Outcome::entity).containsExactly(empty);
+        assertThat(result.getModifiedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void batchUpdateAndUpsert() {
+        List<InventoryEntity> entities = inventoryDataAccess.query(InventoryQuery.builder().status("D").build());
+        entities.forEach(e -> e.setStatus("E"));
+        InventoryEntity newEntity = new InventoryEntity();
+        newEntity.setItem("pen");
+        newEntity.setStatus("E");
+
+        BulkResult<InventoryEntity> updated = inventoryDataAccess.batchUpdate(entities);
+        BulkResult<InventoryEntity> upserted = inventoryDataAccess.batchUpsert(List.of(entities.get(0), newEntity));
+
+        assertThat(updated.getModifiedCount()).isEqualTo(2);
+        assertThat(upserted.getOutcomes()).extracting(BulkResult.Outcome::status)
+                                           .containsExactly(BulkResult.Status.APPLIED, BulkResult.Status.UPSERTED);
+        assertThat(newEntity.getId()).isNotNull();
+        assertThat(inventoryDataAccess.count(InventoryQuery.builder().status("E").build())).isEqualTo(3);
+    }
+
+    @Test
+    void ingestInChunks() {
+        List<InventoryEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            InventoryEntity entity = new InventoryEntity();
+            entity.setItem("item" + i);
+            entity.setStatus("N");
+            entities.add(entity);
+        }
+
+        InsertResult<InventoryEntity> result = inventoryDataAccess.ingest(entities, 2, 2);
+
+        assertThat(result.getInsertedCount()).isEqualTo(5);
+        assertThat(result.hasFailures()).isFalse();
+        assertThat(entities).extracting("objectId").doesNotContainNull();
+        assertThat(inventoryDataAccess.queryIds(InventoryQuery.builder().status("N").build()))
+                .containsExactlyInAnyOrderElementsOf(entities.stream().map(InventoryEntity::getId).toList());
+    }
+
+    @Test
+    void upsertByIdAndNaturalKey() {
+        InventoryEntity pen = new InventoryEntity();
+        pen.setItem("pen");
+        pen.setQty(10);
+
+        assertThat(inventoryDataAccess.upsert(pen)).isEqualTo(1);
+        assertThat(pen.getId()).isNotNull();
+
+        InventoryEntity paper = new InventoryEntity();
+        paper.setItem("paper");
+        paper.setQty(1);
+        assertThat(inventoryDataAccess.upsert(paper, InventoryQuery.builder().item("paper").build())).isEqualTo(1);
+        assertThat(paper.getObjectId()).isNull();
+
+        InventoryEntity pencil = new InventoryEntity();
+        pencil.setItem("pencil");
+        assertThat(inventoryDataAccess.upsert(pencil, InventoryQuery.builder().item("pencil").build())).isEqualTo(1);
+        assertThat(pencil.getObjectId()).isNotNull();
+
+        assertThat(inventoryDataAccess.get(pen.getId())).extracting("qty").isEqualTo(10);
+        assertThat(inventoryDataAccess.queryColumns(InventoryQuery.builder().item("paper").build(), Integer.class, "qty"))
+                .containsExactly(1);
+    }
+
+    @Test
+    void upsertPatchWithSetOnInsert() {
+        InventoryQuery byItem = InventoryQuery.builder().item("eraser").build();
+        InventoryEntity patch = new InventoryEntity();
+        patch.setQty(5);
+        InventoryEntity onInsert = new InventoryEntity();
+        onInsert.setQty(0);
+        onInsert.setStatus("N");
+
+        InventoryEntity secondPatch = new InventoryEntity();
+        secondPatch.setQty(6);
+
+        assertThat(inventoryDataAccess.upsertPatch(patch, byItem, onInsert)).isEqualTo(1);
+        assertThat(patch.getId()).isNotNull();
+        assertThat(inventoryDataAccess.upsertPatch(secondPatch, byItem, onInsert)).isEqualTo(1);
+        assertThat(secondPatch.getId()).isNull();
+
+        assertThat(inventoryDataAccess.query(byItem))
+                .singleElement()
+                .extracting("item", "qty", "status")
+                .containsExactly("eraser", 6, "N");
+    }
+
+    @Test
+    void getByIdsInInputOrder() {
+        List<String> ids = new ArrayList<>(inventoryDataAccess.queryIds(InventoryQuery.builder().status("A").build()));
+        Collections.reverse(ids);
+        ids.add(1, new ObjectId().toHexString());
+
+        List<InventoryEntity> entities = inventoryDataAccess.getByIds(ids);
+        Map<String, InventoryEntity> entityMap = inventoryDataAccess.getByIdsAsMap(ids);
+
+        assertThat(entities).extracting("item").containsExactly("postcard", "notebook", "journal");
+        assertThat(entityMap).hasSize(3).containsKeys(ids.get(0), ids.get(2), ids.get(3));
+    }
+
+    @Test
+    void getByBigIntegerIds() {
+        List<BigInteger> ids = userDataAccess.queryIds(UserQuery.builder().build());
+
+        List<UserEntity> users = userDataAccess.getByIds(ids);
+
+        assertThat(users).extracting("id").containsExactlyElementsOf(ids);
+        assertThat(userDataAccess.get(ids.get(0))).extracting("id").isEqualTo(ids.get(0));
+    }
+
+    @Test
+    void getWithoutBatchingInTransaction() {
+        String id = inventoryDataAccess.queryIds(InventoryQuery.builder().status("D").build()).get(0);
+        IdBatchLoader<ObjectId, InventoryEntity> loader = inventoryDataAccess.enableGetBatching(100, Duration.ofMillis(5));
+
+        InventoryEntity entity = inventoryDataAccess.get(id);
+
+        assertThat(entity.getItem()).isEqualTo("paper");
+        assertThat(loader.getMetrics().requests()).isZero();
+    }
+
+    @Test
+    void supportNestedQueryByReverseJoin() {
+        RoleQuery roleQuery = RoleQuery.builder().valid(true).build();
+        UserQuery userQuery = UserQuery.builder().reverseRole(roleQuery).build();
+
+        List<UserEntity> userEntities = userDataAccess.query(userQuery);
+
+        assertThat(userEntities).extracting("username").containsExactly("f0rb", "user3");
+        assertThat(userDataAccess.count(userQuery)).isEqualTo(2);
+    }
+
+    @Test
+    void pageNestedQueryByReverseJoin() {
+        RoleQuery roleQuery = RoleQuery.builder().valid(true).build();
+        UserQuery userQuery = UserQuery.builder().reverseRole(roleQuery).pageSize(1).build();
+
+        PageList<UserEntity> page = userDataAccess.page(userQuery);
+
+        assertThat(page.getList()).extracting("username").containsExactly("f0rb");
+        assertThat(page.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void joinForwardWhenReverseJoinExceedsMaxIds() {
+        RoleQuery roleQuery = RoleQuery.builder().valid(true).build();
+        UserQuery userQuery = UserQuery.builder().cappedRole(roleQuery).build();
+
+        List<UserEntity> userEntities = userDataAccess.query(userQuery);
+
+        assertThat(userEntities).extracting("username").containsExactly("f0rb", "user3");
+    }
 }
@@ -21,14 +21,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.ResourceLock;
 import org.springframework.beans.factory.annotation.Autowired;
 import win.doyto.query.core.DataQueryClient;
+import win.doyto.query.core.PageList;
+import win.doyto.query.mongodb.paging.KeysetList;
+import win.doyto.query.mongodb.paging.SliceList;
 import win.doyto.query.mongodb.test.aggregate.*;
+import win.doyto.query.mongodb.test.inventory.InventoryEntity;
+import win.doyto.query.mongodb.test.inventory.InventoryFacetView;
+import win.doyto.query.mongodb.test.inventory.InventoryQuery;
 import win.doyto.query.mongodb.test.user.UserEntity;
 import win.doyto.query.mongodb.test.user.UserQuery;
 import win.doyto.query.test.role.RoleQuery;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 /**
  * MongoDataQueryClientTest
@@ -39,9 +47,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 class MongoDataQueryClientTest extends MongoApplicationTest {
 
     DataQueryClient dataQueryClient;
+    MongoDataQueryClient mongoDataQueryClient;
 
     MongoDataQueryClientTest(@Autowired MongoClient mongoClient) {
-        this.dataQueryClient = new MongoDataQueryClient(mongoClient);
+        this.mongoDataQueryClient = new MongoDataQueryClient(mongoClient);
+        this.dataQueryClient = mongoDataQueryClient;
     }
 
     @Test
@@ -123,4 +133,56 @@ class MongoDataQueryClientTest extends MongoApplicationTest {
         long count = dataQueryClient.count(userQuery, UserEntity.class);
         assertThat(count).isEqualTo(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void pageByFacetInOneAggregation() {
+        InventoryQuery query = InventoryQuery.builder().pageNumber(1).pageSize(2).build();
+
+        PageList<InventoryFacetView> page = dataQueryClient.page(query, InventoryFacetView.class);
+        PageList<InventoryEntity> expected = dataQueryClient.page(query, InventoryEntity.class);
+
+        assertThat(page.getTotal()).isEqualTo(expected.getTotal()).isEqualTo(5);
+        assertThat(page.getList()).extracting("item")
+                                  .containsExactlyElementsOf(expected.getList().stream().map(InventoryEntity::getItem).toList());
+    }
+
+    @Test
+    void pageByFacetWithEmptyResult() {
+        InventoryQuery query = InventoryQuery.builder().status("none").pageSize(2).build();
+
+        PageList<InventoryFacetView> page = dataQueryClient.page(query, InventoryFacetView.class);
+
+        assertThat(page.getTotal()).isZero();
+        assertThat(page.getList()).isEmpty();
+    }
+
+    @Test
+    void seekGroupedViewsByKeyset() {
+        QuantityByStatusQuery query = QuantityByStatusQuery.builder().sort("status,desc").pageSize(1).build();
+
+        KeysetList<QuantityByStatusView> first = mongoDataQueryClient.queryByKeyset(query, QuantityByStatusView.class, null);
+        KeysetList<QuantityByStatusView> second = mongoDataQueryClient.queryByKeyset(query, QuantityByStatusView.class, first.getNext());
+
+        assertThat(first.getList()).extracting("status").containsExactly("D");
+        assertThat(second.getList()).extracting("status", "sumQty").containsExactly(tuple("A", 120));
+    }
+
+    @Test
+    void streamGroupedViews() {
+        QuantityByStatusQuery query = QuantityByStatusQuery.builder().sort("status,desc").build();
+
+        try (Stream<QuantityByStatusView> stream = mongoDataQueryClient.stream(query, QuantityByStatusView.class)) {
+            assertThat(stream.map(QuantityByStatusView::getStatus)).containsExactly("D", "A");
+        }
+    }
+
+    @Test
+    void sliceGroupedViews() {
+        QuantityByStatusQuery query = QuantityByStatusQuery.builder().sort("status").pageSize(1).build();
+
+        SliceList<QuantityByStatusView> slice = mongoDataQueryClient.slice(query, QuantityByStatusView.class);
+
+        assertThat(slice.getList()).extracting("status").containsExactly("A");
+        assertThat(slice.hasNext()).isTrue();
+    }
+}
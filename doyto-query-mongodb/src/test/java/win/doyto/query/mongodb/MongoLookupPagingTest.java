@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package win.doyto.query.mongodb;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import org.bson.BsonArray;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import win.doyto.query.mongodb.aggregation.AggregationMetadata;
+import win.doyto.query.mongodb.aggregation.CollectionProvider;
+import win.doyto.query.mongodb.filter.SortKey;
+import win.doyto.query.mongodb.paging.KeysetToken;
+import win.doyto.query.mongodb.test.user.UserEntity;
+import win.doyto.query.mongodb.test.user.UserQuery;
+import win.doyto.query.test.role.RoleQuery;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static win.doyto.query.mongodb.MongoConstant.*;
+
+/**
+ * MongoLookupPagingTest
+ * <p>
+ * Explain is not allowed in a transaction, so this test runs without
+ * the {@link win.doyto.query.mongodb.test.TransactionInvocationInterceptor}.
+ *
+ * @author agent on 2026/10/18
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+class MongoLookupPagingTest {
+    private final AggregationMetadata<MongoCollection<Document>> md;
+
+    MongoLookupPagingTest(@Autowired MongoClient mongoClient) {
+        this.md = AggregationMetadata.build(UserEntity.class, new CollectionProvider(mongoClient));
+    }
+
+    private long lookupReturned(UserQuery query) {
+        return lookupReturned(md.buildAggregation(query));
+    }
+
+    private long lookupReturned(List<Bson> pipeline) {
+        Document explain = md.getCollection().aggregate(pipeline).explain(ExplainVerbosity.EXECUTION_STATS);
+        return explain.getList("stages", Document.class).stream()
+                      .filter(stage -> stage.containsKey("$lookup"))
+                      .mapToLong(stage -> stage.get("nReturned", Number.class).longValue())
+                      .findFirst().orElseThrow();
+    }
+
+    @Test
+    void lookupOnlyDocumentsOfPage() {
+        UserQuery query = UserQuery.builder().withRoles(RoleQuery.builder().build()).pageSize(2).build();
+
+        assertThat(lookupReturned(query)).isEqualTo(2);
+    }
+
+    @Test
+    void lookupAllDocumentsWhenSortedByLookedUpField() {
+        UserQuery query = UserQuery.builder().withRoles(RoleQuery.builder().build())
+                                   .sort("roles.roleName").pageSize(2).build();
+
+        assertThat(lookupReturned(query)).isEqualTo(4);
+    }
+
+    @Test
+    void lookupOnlyDocumentsOfPageInFacet() {
+        UserQuery query = UserQuery.builder().withRoles(RoleQuery.builder().build()).pageSize(2).build();
+
+        List<Bson> pipeline = md.buildFacetPage(query);
+
+        assertThat(pipeline).extracting(stage -> stage.toBsonDocument().getFirstKey()).doesNotContain("$lookup");
+        List<String> data = pipeline.get(pipeline.size() - 1).toBsonDocument().getDocument("$facet")
+                                    .getArray(FACET_DATA).stream()
+                                    .map(stage -> stage.asDocument().getFirstKey()).toList();
+        assertThat(data).containsExactly("$sort", "$skip", "$limit", "$lookup", "$project");
+        Document result = md.getCollection().aggregate(pipeline).first();
+        assertThat(result.getList(FACET_DATA, Document.class)).hasSize(2);
+        assertThat(result.getList(FACET_TOTAL, Document.class).get(0).get(COUNT_KEY, Number.class).longValue())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void lookupOnlyDocumentsOfKeysetPage() {
+        UserQuery query = UserQuery.builder().withRoles(RoleQuery.builder().build()).pageSize(1).build();
+        List<SortKey> sortKeys = md.buildSortKeys(query);
+        Document first = md.getCollection().find().sort(new Document(MONGO_ID, 1)).first();
+        String token = KeysetToken.encode(sortKeys, new BsonArray(List.of(new BsonObjectId(first.getObjectId(MONGO_ID)))));
+
+        List<Bson> pipeline = md.buildKeysetAggregation(query, sortKeys, token);
+
+        assertThat(pipeline.get(0).toBsonDocument().getFirstKey()).isEqualTo("$match");
+        assertThat(lookupReturned(pipeline)).isEqualTo(2);
+    }
+}
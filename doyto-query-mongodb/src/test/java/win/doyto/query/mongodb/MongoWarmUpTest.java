@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb;
+
+import com.mongodb.client.MongoClient;
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.Test;
+import win.doyto.query.mongodb.test.inventory.InventoryEntity;
+import win.doyto.query.mongodb.test.user.UserEntity;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MongoWarmUpTest
+ *
+ * @author agent on 2026/10/18
+ */
+class MongoWarmUpTest extends MongoApplicationTest {
+
+    @Resource
+    private MongoClient mongoClient;
+
+    @Test
+    void prepareScannedEntitiesAndConnectionsOnce() {
+        MongoWarmUp warmUp = new MongoWarmUp(mongoClient);
+        warmUp.setBasePackages(new String[]{"win.doyto.query.mongodb.test"});
+        warmUp.setConnections(2);
+
+        warmUp.prepare();
+
+        assertThat(warmUp.getTimings())
+                .containsKeys(InventoryEntity.class.getName(), UserEntity.class.getName(), "connections");
+
+        warmUp.getTimings().clear();
+        warmUp.prepare();
+
+        assertThat(warmUp.getTimings()).isEmpty();
+    }
+
+    @Test
+    void runWarmUpQueriesAfterSingletonsInstantiated() {
+        AtomicInteger counter = new AtomicInteger();
+        MongoWarmUp warmUp = new MongoWarmUp(mongoClient);
+        warmUp.setQueries(List.of(counter::incrementAndGet, () -> {
+            throw new IllegalStateException("ignored");
+        }));
+
+        warmUp.afterSingletonsInstantiated();
+
+        assertThat(counter).hasValue(1);
+        assertThat(warmUp.getTimings()).containsKeys("query#0", "query#1");
+    }
+}
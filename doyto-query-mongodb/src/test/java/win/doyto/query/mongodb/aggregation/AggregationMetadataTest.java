@@ -21,6 +21,10 @@ import org.bson.BsonDocument;
 import org.bson.conversions.Bson;
 import org.junit.jupiter.api.Test;
 import win.doyto.query.mongodb.test.TestUtil;
+import win.doyto.query.mongodb.test.aggregate.QuantityByStatusQuery;
+import win.doyto.query.mongodb.test.aggregate.QuantityByStatusView;
+import win.doyto.query.mongodb.test.inventory.InventoryFacetView;
+import win.doyto.query.mongodb.test.inventory.InventoryQuery;
 import win.doyto.query.mongodb.test.user.UserEntity;
 import win.doyto.query.mongodb.test.user.UserQuery;
 import win.doyto.query.test.role.RoleQuery;
@@ -68,4 +72,135 @@ class AggregationMetadataTest {
         String expected = readString("/query_user_with_valid_roles_filter_by_invalid_roles.json");
         assertThat(result).isEqualTo(expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    void reuseCachedShapeWithDifferentFilterValues() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+        md.buildAggregation(UserQuery.builder().role(RoleQuery.builder().valid(true).build())
+                                     .withRoles(RoleQuery.builder().valid(false).build()).build());
+        UserQuery userQuery = UserQuery.builder()
+                                       .role(RoleQuery.builder().valid(false).build())
+                                       .withRoles(RoleQuery.builder().valid(true).build())
+                                       .build();
+
+        List<Bson> pipeline = md.buildAggregation(userQuery);
+
+        String expected = readString("/query_user_with_valid_roles_filter_by_invalid_roles.json");
+        assertThat(TestUtil.toJson(pipeline)).isEqualTo(expected);
+    }
+
+    @Test
+    void dropRelationStagesWhenRelationQueriesAbsent() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+        md.buildAggregation(UserQuery.builder().withRoles(RoleQuery.builder().build()).build());
+
+        List<Bson> pipeline = md.buildAggregation(UserQuery.builder().build());
+
+        assertThat(TestUtil.toJson(pipeline)).doesNotContain("$lookup", "$unset");
+    }
+
+    @Test
+    void buildFacetPageWithDataAndTotal() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(InventoryFacetView.class, null);
+        InventoryQuery query = InventoryQuery.builder().status("A").pageNumber(1).pageSize(2).build();
+
+        List<Bson> pipeline = md.buildFacetPage(query);
+
+        assertThat(md.isFacetPaging()).isTrue();
+        assertThat(pipeline).hasSize(2);
+        BsonDocument facet = pipeline.get(1).toBsonDocument().getDocument("$facet");
+        BsonArray data = facet.getArray("data");
+        assertThat(data).hasSize(4)
+                        .contains(BsonDocument.parse("{\"$skip\": 2}"), BsonDocument.parse("{\"$limit\": 2}"));
+        assertThat(facet.getArray("total").get(0).asDocument().getString("$count").getValue()).isEqualTo("count");
+    }
+
+    @Test
+    void dropSubDomainLookupsForCount() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+        UserQuery userQuery = UserQuery.builder().withRoles(RoleQuery.builder().build()).build();
+
+        List<Bson> pipeline = md.buildCount(userQuery);
+
+        assertThat(TestUtil.toJson(pipeline)).doesNotContain("$lookup", "$unset").contains("$count");
+    }
+
+    @Test
+    void keepNestedLookupsForCount() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+        UserQuery userQuery = UserQuery.builder().role(RoleQuery.builder().valid(true).build()).build();
+
+        assertThat(md.buildCountFilter(userQuery)).isNull();
+        assertThat(TestUtil.toJson(md.buildCount(userQuery))).contains("$lookup");
+    }
+
+    @Test
+    void countByFilterWithoutNestedQueryOrGrouping() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+        AggregationMetadata<Object> groupMd = new AggregationMetadata<>(QuantityByStatusView.class, null);
+        UserQuery userQuery = UserQuery.builder().withRoles(RoleQuery.builder().build()).build();
+
+        assertThat(md.buildCountFilter(userQuery)).isNotNull();
+        assertThat(groupMd.buildCountFilter(QuantityByStatusQuery.builder().build())).isNull();
+    }
+
+    @Test
+    void limitCountForCappedCount() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+
+        List<Bson> pipeline = md.buildCount(UserQuery.builder().build(), 100);
+
+        assertThat(TestUtil.toJson(pipeline.subList(pipeline.size() - 2, pipeline.size())))
+                .isEqualToIgnoringWhitespace("[{\"$limit\": 101}, {\"$count\": \"count\"}]");
+    }
+
+    @Test
+    void projectGroupedFieldsEarly() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(QuantityByStatusView.class, null);
+
+        List<Bson> pipeline = md.buildAggregation(QuantityByStatusQuery.builder().build());
+
+        BsonDocument project = pipeline.get(0).toBsonDocument().getDocument("$project");
+        assertThat(project).containsOnlyKeys("status", "qty", "item");
+        assertThat(pipeline.get(1).toBsonDocument()).containsKey("$group");
+    }
+
+    @Test
+    void keepPipelineWithoutLookupOrGroup() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+
+        List<Bson> pipeline = md.buildAggregation(UserQuery.builder().valid(true).build());
+
+        assertThat(pipeline).hasSize(3);
+        assertThat(pipeline.get(0).toBsonDocument()).containsKey("$match");
+    }
+
+    @Test
+    void pageBeforeLookupsUnlessSortedByLookedUpField() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+        UserQuery.UserQueryBuilder<?, ?> builder = UserQuery.builder().withRoles(RoleQuery.builder().build()).pageSize(2);
+
+        List<String> stages = md.buildAggregation(builder.build()).stream()
+                                .map(stage -> stage.toBsonDocument().getFirstKey()).toList();
+        List<String> sortedByRoles = md.buildAggregation(builder.sort("roles.roleName").build()).stream()
+                                       .map(stage -> stage.toBsonDocument().getFirstKey()).toList();
+
+        assertThat(stages).containsExactly("$project", "$sort", "$skip", "$limit", "$lookup", "$project");
+        assertThat(sortedByRoles).containsExactly("$project", "$lookup", "$sort", "$skip", "$limit", "$project");
+        assertThat(TestUtil.toJson(md.buildCount(builder.build()))).doesNotContain("$sort");
+    }
+
+    @Test
+    void projectEarlyRightAfterRootMatch() {
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+        UserQuery query = UserQuery.builder().valid(true)
+                                   .createUser(UserQuery.builder().username("f0rb").build()).build();
+
+        List<Bson> pipeline = md.buildAggregation(query);
+
+        assertThat(pipeline).extracting(stage -> stage.toBsonDocument().getFirstKey())
+                            .containsExactly("$match", "$project", "$lookup", "$match", "$unset", "$sort", "$project");
+        assertThat(pipeline.get(1).toBsonDocument().getDocument("$project"))
+                .containsKey("createUserId").doesNotContainKey("createUser");
+    }
+}
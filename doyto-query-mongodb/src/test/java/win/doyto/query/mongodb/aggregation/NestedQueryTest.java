@@ -16,6 +16,7 @@
 
 package win.doyto.query.mongodb.aggregation;
 
+import com.mongodb.client.model.Filters;
 import org.bson.conversions.Bson;
 import org.junit.jupiter.api.Test;
 import win.doyto.query.annotation.DomainPath;
@@ -52,6 +53,17 @@ class NestedQueryTest {
         assertThat(actual).isEqualTo(expected);
     }
 
+    @Test
+    void supportSemiJoinForManyToManyWithReverseSign() throws NoSuchFieldException {
+        Field field = RoleQuery.class.getDeclaredField("user");
+
+        Bson bson = buildLookUpForNestedQuery("user", field.getAnnotation(DomainPath.class), Filters.eq("username", "f0rb"));
+
+        String actual = TestUtil.toJson(bson);
+        String expected = readString("/query_roles_semi_join_user.json");
+        assertThat(actual).isEqualTo(expected);
+    }
+
     @Test
     void supportNestedQueryForOneToMany() {
         UserQuery createUserQuery = UserQuery.builder().username("f0rb").build();
@@ -92,4 +104,14 @@ class NestedQueryTest {
         assertThat(result).isEqualTo(expected);
     }
 
+    @Test
+    void skipLookupForEmptyNestedQuery() {
+        UserQuery query = UserQuery.builder().createUser(UserQuery.builder().build()).build();
+        AggregationMetadata<Object> md = new AggregationMetadata<>(UserEntity.class, null);
+
+        List<Bson> pipeline = md.buildAggregation(query);
+
+        assertThat(TestUtil.toJson(pipeline)).doesNotContain("$lookup", "$unset");
+    }
+
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.benchmark;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import win.doyto.query.mongodb.entity.BeanDocMapper;
+import win.doyto.query.mongodb.entity.CodecDocMapper;
+import win.doyto.query.mongodb.test.inventory.InventoryEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DocMapperBenchmark
+ * <p>
+ * Compare {@link BeanDocMapper} with {@link CodecDocMapper}.
+ * Run the main method from the test classpath.
+ *
+ * @author agent on 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocMapperBenchmark {
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    private Document document;
+    private RawBsonDocument rawBsonDocument;
+    private BeanDocMapper<InventoryEntity> beanDocMapper;
+    private CodecDocMapper<InventoryEntity> codecDocMapper;
+    private Codec<InventoryEntity> codec;
+
+    @Setup
+    public void setup() {
+        String json = "{\"_id\": {\"$oid\": \"61a1c650bfaa2f4b6480df54\"}, \"item\": \"notebook\", \"qty\": 50, " +
+                "\"size\": {\"h\": 8.5, \"w\": 11.0, \"uom\": \"in\"}, \"status\": \"A\"}";
+        document = Document.parse(json);
+        rawBsonDocument = RawBsonDocument.parse(json);
+        beanDocMapper = new BeanDocMapper<>(InventoryEntity.class);
+        codecDocMapper = new CodecDocMapper<>(InventoryEntity.class);
+        codec = codecDocMapper.getCodec();
+    }
+
+    @Benchmark
+    public InventoryEntity beanDocMapper() {
+        return beanDocMapper.map(document);
+    }
+
+    @Benchmark
+    public InventoryEntity codecDocMapper() {
+        return codecDocMapper.map(document);
+    }
+
+    /**
+     * Simulate decoding from the driver's reader, where no {@link Document} is built at all.
+     */
+    @Benchmark
+    public InventoryEntity codecFromReader() {
+        return codec.decode(rawBsonDocument.asBsonReader(), DECODER_CONTEXT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DocMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.benchmark;
+
+import org.bson.BsonDocument;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import win.doyto.query.mongodb.filter.MongoFilterBuilder;
+import win.doyto.query.mongodb.test.inventory.Conditions;
+import win.doyto.query.mongodb.test.inventory.InventoryQuery;
+import win.doyto.query.mongodb.test.inventory.SizeQuery;
+import win.doyto.query.mongodb.test.inventory.UnitQuery;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FilterBuilderBenchmark
+ * <p>
+ * Measure {@link MongoFilterBuilder#buildFilter} for a query
+ * with a nested query and a list of Or conditions.
+ * Run the main method from the test classpath.
+ *
+ * @author agent on 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBuilderBenchmark {
+
+    private InventoryQuery query;
+
+    @Setup
+    public void setup() {
+        query = InventoryQuery.builder()
+                              .itemContain("note")
+                              .status("A")
+                              .size(SizeQuery.builder().hLt(15).uom("in")
+                                             .unit(UnitQuery.builder().name("inch").build()).build())
+                              .conditionsOr(List.of(
+                                      Conditions.builder().statusIn(List.of("A", "D")).build(),
+                                      Conditions.builder().statusIn(List.of("A", "C")).qtyGt(10).build()))
+                              .build();
+    }
+
+    @Benchmark
+    public Object buildFilter() {
+        return MongoFilterBuilder.buildFilter(query);
+    }
+
+    /**
+     * Include rendering, which the driver does when sending the command.
+     */
+    @Benchmark
+    public BsonDocument buildAndRenderFilter() {
+        return MongoFilterBuilder.buildFilter(query).toBsonDocument();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FilterBuilderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import win.doyto.query.annotation.Entity;
+import win.doyto.query.annotation.EntityType;
+import win.doyto.query.mongodb.test.inventory.InventoryEntity;
+import win.doyto.query.mongodb.test.user.UserEntity;
+
+import java.math.BigInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CodecDocMapperTest
+ *
+ * @author agent on 2026/10/18
+ */
+class CodecDocMapperTest {
+
+    @Test
+    void mapToSameEntityAsBeanDocMapper() {
+        Document document = Document.parse("{\"_id\": {\"$oid\": \"61a1c650bfaa2f4b6480df54\"}, \"item\": \"notebook\", " +
+                "\"qty\": 50, \"size\": {\"h\": 8.5, \"w\": 11, \"uom\": \"in\"}, \"status\": \"A\"}");
+
+        InventoryEntity actual = new CodecDocMapper<>(InventoryEntity.class).map(document);
+
+        InventoryEntity expected = new BeanDocMapper<>(InventoryEntity.class).map(document);
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(actual).extracting("id", "item", "qty", "size.h", "size.w", "size.uom")
+                          .containsExactly("61a1c650bfaa2f4b6480df54", "notebook", 50, 8.5, 11., "in");
+    }
+
+    @Test
+    void skipUnknownFieldsAndNullValues() {
+        Document document = Document.parse("{\"item\": \"notebook\", \"unknown\": {\"a\": [1, 2]}, \"status\": null}");
+
+        InventoryEntity actual = new CodecDocMapper<>(InventoryEntity.class).map(document);
+
+        assertThat(actual).extracting("item", "status", "objectId").containsExactly("notebook", null, null);
+    }
+
+    @Test
+    void mapNestedCollectionAndBigIntegerId() {
+        Document document = Document.parse("{\"_id\": {\"$oid\": \"628b3a27f7a4ba009198a677\"}, \"username\": \"f0rb\", " +
+                "\"roles\": [{\"_id\": {\"$oid\": \"628b3a27f7a4ba009198a678\"}, \"roleName\": \"admin\", \"valid\": true}], " +
+                "\"createUser\": null}");
+
+        UserEntity actual = new CodecDocMapper<>(UserEntity.class).map(document);
+
+        assertThat(actual.getId()).isEqualTo(new BigInteger("628b3a27f7a4ba009198a677", 16));
+        assertThat(actual.getObjectId()).isEqualTo(new ObjectId("628b3a27f7a4ba009198a677"));
+        assertThat(actual.getCreateUser()).isNull();
+        assertThat(actual.getRoles()).hasSize(1).first()
+                                     .extracting("roleName", "valid", "objectId")
+                                     .containsExactly("admin", true, new ObjectId("628b3a27f7a4ba009198a678"));
+    }
+
+    @Test
+    void encodeEntitySkippingNulls() {
+        InventoryEntity entity = new CodecDocMapper<>(InventoryEntity.class).map(Document.parse(
+                "{\"_id\": {\"$oid\": \"61a1c650bfaa2f4b6480df54\"}, \"item\": \"notebook\", " +
+                        "\"size\": {\"h\": 8.5, \"uom\": \"in\"}}"));
+        EntityCodec<InventoryEntity> codec = new EntityCodec<>(InventoryEntity.class, CodecDocMapper.ENTITY_CODEC_REGISTRY);
+
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), entity, EncoderContext.builder().build());
+
+        assertThat(document.toJson()).isEqualTo("{\"_id\": {\"$oid\": \"61a1c650bfaa2f4b6480df54\"}, " +
+                "\"item\": \"notebook\", \"size\": {\"h\": 8.5, \"uom\": \"in\"}}");
+    }
+
+    @Test
+    void generateObjectIdBeforeInsert() {
+        InventoryEntity entity = new InventoryEntity();
+        EntityCodec<InventoryEntity> codec = new EntityCodec<>(InventoryEntity.class, CodecDocMapper.ENTITY_CODEC_REGISTRY);
+        assertThat(codec.documentHasId(entity)).isFalse();
+
+        codec.generateIdIfAbsentFromDocument(entity);
+
+        assertThat(codec.documentHasId(entity)).isTrue();
+        assertThat(entity.getId()).isEqualTo(entity.getObjectId().toHexString());
+        assertThat(codec.getDocumentId(entity)).isEqualTo(new BsonObjectId(entity.getObjectId()));
+    }
+
+    @Test
+    void provideCodecOnlyForMongoEntity() {
+        EntityCodecProvider provider = new EntityCodecProvider();
+
+        assertThat(provider.get(PlainBean.class, CodecDocMapper.ENTITY_CODEC_REGISTRY)).isNull();
+        assertThat(provider.get(InventoryEntity.class, CodecDocMapper.ENTITY_CODEC_REGISTRY)).isInstanceOf(EntityCodec.class);
+    }
+
+    @Test
+    void keepJacksonNamingForRenamedEntity() {
+        assertThat(new EntityCodecProvider().get(RenamedEntity.class, CodecDocMapper.ENTITY_CODEC_REGISTRY))
+                .isInstanceOf(JacksonBsonCodec.class);
+
+        RenamedEntity actual = new CodecDocMapper<>(RenamedEntity.class).map(Document.parse("{\"order_no\": \"A001\"}"));
+
+        assertThat(actual.getOrderNo()).isEqualTo("A001");
+    }
+
+    @Getter
+    @Setter
+    public static class PlainBean {
+        private String name;
+    }
+
+    @Getter
+    @Setter
+    @Entity(type = EntityType.MONGO_DB, database = "doyto", name = "c_order")
+    public static class RenamedEntity {
+        @JsonProperty("order_no")
+        private String orderNo;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+import org.bson.BsonBinary;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonType;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import win.doyto.query.mongodb.test.inventory.InventoryEntity;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JacksonBsonCodecTest
+ *
+ * @author agent on 2026/10/18
+ */
+class JacksonBsonCodecTest {
+
+    @Getter
+    @Setter
+    public static class Order {
+        @JsonProperty("order_no")
+        private String orderNo;
+        private ObjectId ref;
+        private Date createTime;
+        private BigDecimal amount;
+        private Decimal128 tax;
+        private List<Integer> counts;
+    }
+
+    private static <V> BsonDocument encode(JacksonBsonCodec<V> codec, V value) {
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), value, EncoderContext.builder().build());
+        return document;
+    }
+
+    private static <V> V decode(JacksonBsonCodec<V> codec, BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    @Test
+    void encodeToNativeBsonTypes() {
+        Order order = new Order();
+        order.setOrderNo("A001");
+        order.setRef(new ObjectId("628b3a27f7a4ba009198a677"));
+        order.setCreateTime(new Date(1700000000000L));
+        order.setAmount(new BigDecimal("12.30"));
+        order.setTax(Decimal128.parse("0.13"));
+        order.setCounts(List.of(1, 2));
+
+        BsonDocument document = encode(new JacksonBsonCodec<>(Order.class), order);
+
+        assertThat(document.getString("order_no").getValue()).isEqualTo("A001");
+        assertThat(document.getObjectId("ref").getValue()).isEqualTo(order.getRef());
+        assertThat(document.getDateTime("createTime").getValue()).isEqualTo(1700000000000L);
+        assertThat(document.get("amount").getBsonType()).isEqualTo(BsonType.DECIMAL128);
+        assertThat(document.getDecimal128("tax").getValue()).isEqualTo(Decimal128.parse("0.13"));
+        assertThat(document.getArray("counts")).hasSize(2);
+    }
+
+    @Test
+    void decodeFromNativeBsonTypes() {
+        BsonDocument document = BsonDocument.parse("{\"order_no\": \"A001\", \"ref\": {\"$oid\": \"628b3a27f7a4ba009198a677\"}, " +
+                "\"createTime\": {\"$date\": 1700000000000}, \"amount\": {\"$numberDecimal\": \"12.30\"}, " +
+                "\"tax\": {\"$numberDecimal\": \"0.13\"}, \"counts\": [1, 2], \"unknown\": {\"$minKey\": 1}}");
+
+        Order order = decode(new JacksonBsonCodec<>(Order.class), document);
+
+        assertThat(order.getOrderNo()).isEqualTo("A001");
+        assertThat(order.getRef()).isEqualTo(new ObjectId("628b3a27f7a4ba009198a677"));
+        assertThat(order.getCreateTime()).isEqualTo(new Date(1700000000000L));
+        assertThat(order.getAmount()).isEqualTo(new BigDecimal("12.30"));
+        assertThat(order.getTax()).isEqualTo(Decimal128.parse("0.13"));
+        assertThat(order.getCounts()).containsExactly(1, 2);
+    }
+
+    @Test
+    void skipNullFieldsWhenIgnoreNull() {
+        Order order = new Order();
+        order.setOrderNo("A001");
+
+        BsonDocument document = encode(new JacksonBsonCodec<>(Order.class, true), order);
+
+        assertThat(document).hasToString("{\"order_no\": \"A001\"}");
+    }
+
+    @Test
+    void roundTripMongoPersistable() {
+        InventoryEntity entity = new InventoryEntity();
+        entity.setObjectId(new ObjectId("61a1c650bfaa2f4b6480df54"));
+        entity.setItem("notebook");
+        entity.setQty(50);
+        JacksonBsonCodec<InventoryEntity> codec = new JacksonBsonCodec<>(InventoryEntity.class, true);
+
+        BsonDocument document = encode(codec, entity);
+        InventoryEntity actual = decode(codec, document);
+
+        assertThat(document.getObjectId("_id").getValue()).isEqualTo(entity.getObjectId());
+        assertThat(actual).usingRecursiveComparison().isEqualTo(entity);
+    }
+
+    @Getter
+    @Setter
+    public static class Geo {
+        private Bson location;
+    }
+
+    @Test
+    void decodeBsonFieldWithoutJsonText() {
+        BsonDocument document = BsonDocument.parse("{\"location\": {\"type\": \"Point\", \"coordinates\": [1.5, 2]}}");
+
+        Geo geo = decode(new JacksonBsonCodec<>(Geo.class), document);
+
+        assertThat(geo.getLocation().toBsonDocument()).isEqualTo(document.getDocument("location"));
+    }
+
+    @Getter
+    @Setter
+    public static class Attachment {
+        private byte[] data;
+        private UUID uuid;
+        private UUID legacyUuid;
+        private Bson meta;
+    }
+
+    @Test
+    void keepBinarySubtypes() {
+        UUID uuid = UUID.fromString("7c9e6679-7425-40de-944b-e07fc1f90ae7");
+        BsonDocument meta = new BsonDocument("key", new BsonBinary(uuid));
+        BsonDocument document = new BsonDocument("data", new BsonBinary(new byte[]{1, 2, 3}))
+                .append("uuid", new BsonBinary(uuid))
+                .append("legacyUuid", new BsonBinary(uuid, UuidRepresentation.JAVA_LEGACY))
+                .append("meta", meta);
+        JacksonBsonCodec<Attachment> codec = new JacksonBsonCodec<>(Attachment.class);
+
+        Attachment attachment = decode(codec, document);
+
+        assertThat(attachment.getData()).containsExactly(1, 2, 3);
+        assertThat(attachment.getUuid()).isEqualTo(uuid);
+        assertThat(attachment.getLegacyUuid()).isEqualTo(uuid);
+        assertThat(attachment.getMeta().toBsonDocument()).isEqualTo(meta);
+        BsonDocument encoded = encode(codec, attachment);
+        assertThat(encoded.getBinary("uuid")).isEqualTo(new BsonBinary(uuid));
+        assertThat(encoded.getDocument("meta").getBinary("key").getType())
+                .isEqualTo(BsonBinarySubType.UUID_STANDARD.getValue());
+    }
+}
@@ -64,4 +64,13 @@ class ObjectIdMapperTest {
 
         assertEquals(id, new BigInteger(objectId.toHexString(), 16));
     }
-}
\ No newline at end of file
+
+    @Test
+    void convertIdsBackToObjectId() {
+        ObjectId objectId = new ObjectId("00000000e8b3a2b3c4d5e6f7");
+
+        assertSame(objectId, ObjectIdMapper.toObjectId(objectId));
+        assertEquals(objectId, ObjectIdMapper.toObjectId(objectId.toHexString()));
+        assertEquals(objectId, ObjectIdMapper.toObjectId(new BigInteger(objectId.toHexString(), 16)));
+    }
+}
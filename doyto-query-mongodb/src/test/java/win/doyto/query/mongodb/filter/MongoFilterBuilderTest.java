@@ -30,7 +30,10 @@ import org.junit.jupiter.params.provider.CsvSource;
 import win.doyto.query.geo.GeoPolygon;
 import win.doyto.query.geo.Point;
 import win.doyto.query.mongodb.test.geo.GeoQuery;
+import win.doyto.query.mongodb.test.inventory.InventoryEntity;
 import win.doyto.query.mongodb.test.inventory.InventoryQuery;
+import win.doyto.query.mongodb.test.inventory.InventorySize;
+import win.doyto.query.mongodb.test.inventory.SizeQuery;
 import win.doyto.query.test.TestQuery;
 import win.doyto.query.util.BeanUtil;
 
@@ -95,6 +98,41 @@ class MongoFilterBuilderTest {
         assertEquals(expected, filters.toBsonDocument().toJson());
     }
 
+    @Test
+    void reuseFilterPlanUnderDifferentPrefixes() {
+        SizeQuery sizeQuery = SizeQuery.builder().hLt(15).uom("in").build();
+
+        assertEquals("{\"$and\": [{\"size.h\": {\"$lt\": 15}}, {\"size.uom\": \"in\"}]}",
+                MongoFilterBuilder.buildFilter(sizeQuery, "size").toBsonDocument().toJson());
+        assertEquals("{\"$and\": [{\"box.h\": {\"$lt\": 15}}, {\"box.uom\": \"in\"}]}",
+                MongoFilterBuilder.buildFilter(sizeQuery, "box").toBsonDocument().toJson());
+        assertEquals("{\"$and\": [{\"h\": {\"$lt\": 15}}, {\"uom\": \"in\"}]}",
+                MongoFilterBuilder.buildFilter(sizeQuery).toBsonDocument().toJson());
+    }
+
+    @Test
+    void buildUpdatesWithSingleSetDocument() {
+        InventoryEntity entity = new InventoryEntity();
+        entity.setStatus("A");
+        entity.setQty(20);
+        entity.setSize(new InventorySize(8.5, null, "in"));
+
+        Bson updates = MongoFilterBuilder.buildUpdates(entity);
+
+        assertEquals("{\"$set\": {\"qty\": 20, \"size.h\": 8.5, \"size.uom\": \"in\", \"status\": \"A\"}}",
+                updates.toBsonDocument().toJson());
+    }
+
+    @Test
+    void buildUpdatesForSingleField() {
+        InventoryEntity entity = new InventoryEntity();
+        entity.setStatus("D");
+
+        Bson updates = MongoFilterBuilder.buildUpdates(entity);
+
+        assertEquals("{\"$set\": {\"status\": \"D\"}}", updates.toBsonDocument().toJson());
+    }
+
     @SuppressWarnings("java:S4144")
     @ParameterizedTest
     @CsvSource(value = {
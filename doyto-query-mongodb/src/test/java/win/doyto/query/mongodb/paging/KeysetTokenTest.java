@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2019-2024 Forb Yuan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package win.doyto.query.mongodb.paging;
+
+import org.bson.BsonArray;
+import org.bson.BsonInt32;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import win.doyto.query.mongodb.filter.SortKey;
+import win.doyto.query.mongodb.test.TestUtil;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * KeysetTokenTest
+ *
+ * @author agent on 2026/10/18
+ */
+class KeysetTokenTest {
+    private final List<SortKey> sortKeys = List.of(new SortKey("status", true), new SortKey("_id", false));
+    private final BsonArray values = new BsonArray(List.of(
+            new BsonString("A"), new BsonObjectId(new ObjectId("61b9e5f1e8b3a2b3c4d5e6f7"))));
+
+    @Test
+    void decodeEncodedToken() {
+        String token = KeysetToken.encode(sortKeys, values);
+
+        assertThat(KeysetToken.decode(sortKeys, token)).isEqualTo(values);
+    }
+
+    @Test
+    void rejectTokenOfAnotherSort() {
+        String token = KeysetToken.encode(sortKeys, values);
+        List<SortKey> otherKeys = List.of(new SortKey("status", false), new SortKey("_id", false));
+
+        assertThatThrownBy(() -> KeysetToken.decode(otherKeys, token))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetToken.decode(sortKeys, "not-a-token"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void buildRangeForMultipleColumns() {
+        List<SortKey> keys = List.of(new SortKey("status", true), new SortKey("qty", false));
+        BsonArray keyValues = new BsonArray(List.of(new BsonString("A"), new BsonInt32(25)));
+
+        String range = TestUtil.toJson(KeysetToken.buildRange(keys, keyValues));
+
+        assertThat(range).isEqualToIgnoringWhitespace(
+                "{\"$or\": [{\"$or\": [{\"status\": {\"$lt\": \"A\"}}, {\"status\": null}]}, " +
+                        "{\"$and\": [{\"status\": \"A\"}, {\"qty\": {\"$gt\": 25}}]}]}");
+    }
+
+    @Test
+    void buildRangeAfterNullValues() {
+        List<SortKey> keys = List.of(new SortKey("status", true), new SortKey("item", false), new SortKey("_id", false));
+        ObjectId id = new ObjectId("61b9e5f1e8b3a2b3c4d5e6f7");
+        BsonArray keyValues = new BsonArray(List.of(BsonNull.VALUE, BsonNull.VALUE, new BsonObjectId(id)));
+
+        String range = TestUtil.toJson(KeysetToken.buildRange(keys, keyValues));
+
+        assertThat(range).isEqualToIgnoringWhitespace(
+                "{\"$or\": [{\"$and\": [{\"status\": null}, {\"item\": {\"$ne\": null}}]}, " +
+                        "{\"$and\": [{\"status\": null}, {\"item\": null}, " +
+                        "{\"_id\": {\"$gt\": {\"$oid\": \"61b9e5f1e8b3a2b3c4d5e6f7\"}}}]}]}");
+    }
+}
@@ -37,6 +37,7 @@ import java.util.List;
 @SuperBuilder
 public class InventoryQuery extends PageQuery {
 
+    private String item;
     private String itemContain;
     private String itemNotContain;
     private String itemStart;
@@ -23,6 +23,7 @@ import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 import win.doyto.query.annotation.DomainPath;
 import win.doyto.query.core.PageQuery;
+import win.doyto.query.mongodb.annotation.JoinOrder;
 import win.doyto.query.test.role.RoleQuery;
 
 /**
@@ -49,6 +50,14 @@ public class UserQuery extends PageQuery {
     @DomainPath({"user", "role"})
     private RoleQuery role;
 
+    @JoinOrder(JoinOrder.Direction.REVERSE)
+    @DomainPath({"user", "role"})
+    private RoleQuery reverseRole;
+
+    @JoinOrder(value = JoinOrder.Direction.REVERSE, maxIds = 1)
+    @DomainPath({"user", "role"})
+    private RoleQuery cappedRole;
+
     private String username;
     private Boolean valid;
 